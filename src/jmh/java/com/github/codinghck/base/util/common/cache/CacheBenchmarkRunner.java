@@ -0,0 +1,57 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>按线程数依次运行缓存的基准测试, 由 maven 的 benchmark profile 调用</p>
+ * <p>系统属性: {@code jmh.include} 基准测试的正则, {@code jmh.threads} 逗号分隔的线程数,
+ * 默认为 1 到 CPU 核数之间的 2 的幂; {@code jmh.resultDir} 每个线程数的 JSON 结果的存放目录
+ *
+ * @author hck 2026-10-17 21:30
+ */
+public class CacheBenchmarkRunner {
+
+  private CacheBenchmarkRunner() {}
+
+  public static void main(String[] args) throws RunnerException {
+    String include = System.getProperty("jmh.include", CacheBenchmarkRunner.class.getPackage().getName() + ".*");
+    File resultDir = new File(System.getProperty("jmh.resultDir", "target/jmh"));
+    if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+      throw new IllegalStateException("无法创建结果目录: " + resultDir);
+    }
+    for (int threads : threadCounts(System.getProperty("jmh.threads", ""))) {
+      Options options = new OptionsBuilder()
+          .include(include)
+          .threads(threads)
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result(new File(resultDir, "result-" + threads + "t.json").getPath())
+          .build();
+      new Runner(options).run();
+    }
+  }
+
+  private static List<Integer> threadCounts(String property) {
+    List<Integer> counts = new ArrayList<>();
+    if (property.trim().isEmpty()) {
+      int cores = Runtime.getRuntime().availableProcessors();
+      for (int threads = 1; threads < cores; threads <<= 1) {
+        counts.add(threads);
+      }
+      counts.add(cores);
+      return counts;
+    }
+    for (String count : property.split(",")) {
+      counts.add(Integer.parseInt(count.trim()));
+    }
+    return counts;
+  }
+}
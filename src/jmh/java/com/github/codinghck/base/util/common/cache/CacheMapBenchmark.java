@@ -0,0 +1,124 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>{@link CacheMap} 与 {@code ConcurrentHashMap} 的读, 写和混合吞吐量对比, 混合场景的读操作占比由
+ * {@link ReadRatio#readPercent} 指定, 默认对比 90/10 (典型的读多写少) 和 75/25; 该参数放在只有混合场景使用的
+ * {@link ReadRatio} 中, 不会让读和写的测量重复执行</p>
+ * <p>线程数由 {@link CacheBenchmarkRunner} 设置, 配合 GC profiler 观察每次操作的内存分配 (gc.alloc.rate.norm)
+ *
+ * @author hck 2026-10-17 21:25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheMapBenchmark {
+
+  private static final int ITEMS = 1 << 16;
+  private static final int SAMPLES = 1 << 20;
+  private static final int MASK = SAMPLES - 1;
+  private static final long SEED = 20261017L;
+
+  @Param({"ConcurrentHashMap", "CacheMap", "CacheMap_bounded"})
+  public String impl;
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  public KeyDistribution distribution;
+
+  private Map<Integer, Integer> map;
+  private Integer[] keys;
+
+  @State(Scope.Thread)
+  public static class ThreadIndex {
+    int index = ThreadLocalRandom.current().nextInt();
+  }
+
+  @State(Scope.Benchmark)
+  public static class ReadRatio {
+
+    @Param({"90", "75"})
+    public int readPercent;
+
+    /**
+     * 每个位置是否执行写操作, 按 {@link #readPercent} 预先生成, 避免在测量中调用随机数
+     */
+    boolean[] writes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      writes = new boolean[SAMPLES];
+      Random random = new Random(SEED);
+      for (int i = 0; i < SAMPLES; i++) {
+        writes[i] = random.nextInt(100) >= readPercent;
+      }
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    keys = distribution.sample(ITEMS, SAMPLES, SEED);
+    switch (impl) {
+      case "ConcurrentHashMap":
+        map = new ConcurrentHashMap<>();
+        break;
+      case "CacheMap":
+        map = CacheMap.<Integer, Integer>newBuilder().expireAfterWrite(TimeUnit.HOURS.toMillis(1)).build();
+        break;
+      case "CacheMap_bounded":
+        map = CacheMap.<Integer, Integer>newBuilder().expireAfterWrite(TimeUnit.HOURS.toMillis(1))
+            .maximumSize(ITEMS / 2).build();
+        break;
+      default:
+        throw new IllegalArgumentException("未知的实现: " + impl);
+    }
+    for (Integer key : keys) {
+      map.put(key, key);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (map instanceof CacheMap) {
+      ((CacheMap<Integer, Integer>) map).close();
+    }
+  }
+
+  @Benchmark
+  public Integer get(ThreadIndex thread) {
+    return map.get(keys[thread.index++ & MASK]);
+  }
+
+  @Benchmark
+  public Integer put(ThreadIndex thread) {
+    Integer key = keys[thread.index++ & MASK];
+    return map.put(key, key);
+  }
+
+  @Benchmark
+  public Integer mixed(ThreadIndex thread, ReadRatio ratio) {
+    int index = thread.index++ & MASK;
+    Integer key = keys[index];
+    return ratio.writes[index] ? map.put(key, key) : map.get(key);
+  }
+}
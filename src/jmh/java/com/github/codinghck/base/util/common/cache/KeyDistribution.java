@@ -0,0 +1,77 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * <p>基准测试使用的键分布, 预先生成固定种子的键序列, 测量时不包含生成随机数的开销</p>
+ *
+ * @author hck 2026-10-17 21:20
+ */
+public enum KeyDistribution {
+
+  /**
+   * 所有键被访问的概率相同
+   */
+  UNIFORM {
+    @Override
+    Integer[] sample(int items, int count, long seed) {
+      SplittableRandom random = new SplittableRandom(seed);
+      Integer[] values = new Integer[items];
+      for (int i = 0; i < items; i++) {
+        values[i] = i;
+      }
+      Integer[] keys = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        keys[i] = values[random.nextInt(items)];
+      }
+      return keys;
+    }
+  },
+
+  /**
+   * 按 Zipf 分布 (指数 0.99) 访问, 少数热点键占大部分访问, 接近真实的缓存访问模式
+   */
+  ZIPFIAN {
+    @Override
+    Integer[] sample(int items, int count, long seed) {
+      double[] cdf = new double[items];
+      double sum = 0;
+      for (int i = 0; i < items; i++) {
+        sum += 1.0d / Math.pow(i + 1, ZIPF_EXPONENT);
+        cdf[i] = sum;
+      }
+      SplittableRandom random = new SplittableRandom(seed);
+      // 用随机排列把排名映射为键, 避免热点键集中在相邻的哈希桶
+      Integer[] permutation = new Integer[items];
+      for (int i = 0; i < items; i++) {
+        permutation[i] = i;
+      }
+      for (int i = items - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        Integer tmp = permutation[i];
+        permutation[i] = permutation[j];
+        permutation[j] = tmp;
+      }
+      Integer[] keys = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+        rank = rank >= 0 ? rank : Math.min(-rank - 1, items - 1);
+        keys[i] = permutation[rank];
+      }
+      return keys;
+    }
+  };
+
+  private static final double ZIPF_EXPONENT = 0.99d;
+
+  /**
+   * <p>生成键序列</p>
+   *
+   * @param items 不同键的数量, 键的取值范围为 [0, items)
+   * @param count 序列长度
+   * @param seed 随机种子
+   * @return 键序列, 键对象被复用, 读取时不产生装箱
+   */
+  abstract Integer[] sample(int items, int count, long seed);
+}
@@ -0,0 +1,36 @@
+package com.github.codinghck.base.util.common.base.date;
+
+/**
+ * <p>毫秒时钟, 用于替换直接调用 {@code System.currentTimeMillis()}, 便于在热点路径上使用粗粒度时钟,
+ * 以及在测试中使用 {@link ManualClock} 控制时间</p>
+ *
+ * @author hck 2026-10-17 19:50
+ */
+@FunctionalInterface
+public interface Clock {
+
+  /**
+   * <p>获取当前时间</p>
+   *
+   * @return 距离 1970-01-01 00:00:00 UTC 的毫秒数
+   */
+  long millis();
+
+  /**
+   * <p>获取直接读取系统时间的时钟</p>
+   *
+   * @return 系统时钟
+   */
+  static Clock system() {
+    return System::currentTimeMillis;
+  }
+
+  /**
+   * <p>获取共用的粗粒度时钟, 见 {@link CoarseClock}</p>
+   *
+   * @return 粗粒度时钟
+   */
+  static Clock coarse() {
+    return CoarseClock.getInstance();
+  }
+}
@@ -0,0 +1,55 @@
+package com.github.codinghck.base.util.common.base.date;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>粗粒度时钟, 由一个守护线程每隔 {@link #PRECISION_MILLIS} 毫秒把系统时间写入 volatile 字段,
+ * 读取时只是一次 volatile 读</p>
+ * <p>读到的时间最多比系统时间慢 {@link #PRECISION_MILLIS} 毫秒 (线程调度延迟时可能更多),
+ * 适合缓存过期等不需要精确到毫秒的场景; 第一次使用时才启动更新线程
+ *
+ * @author hck 2026-10-17 19:55
+ */
+@SuppressWarnings("unused")
+public final class CoarseClock implements Clock {
+
+  /**
+   * 更新间隔毫秒数
+   */
+  public static final long PRECISION_MILLIS = 2;
+
+  private static final class Holder {
+    static final CoarseClock INSTANCE = new CoarseClock();
+  }
+
+  private volatile long now = System.currentTimeMillis();
+
+  private CoarseClock() {
+    Thread ticker = new Thread(this::tick, "coarse-clock");
+    ticker.setDaemon(true);
+    ticker.start();
+  }
+
+  /**
+   * <p>获取共用的实例</p>
+   *
+   * @return 粗粒度时钟
+   */
+  public static CoarseClock getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  @Override
+  public long millis() {
+    return now;
+  }
+
+  private void tick() {
+    long parkNanos = TimeUnit.MILLISECONDS.toNanos(PRECISION_MILLIS);
+    while (true) {
+      now = System.currentTimeMillis();
+      LockSupport.parkNanos(this, parkNanos);
+    }
+  }
+}
@@ -127,7 +127,7 @@ public class DateCompareUtils {
    * @return 返回表示是否在此区间的布尔值
    */
   public static boolean isNowInRange(Date start, Date end) {
-    return isInRange(new Date(), start, end);
+    return isInRange(new Date(DateProvider.currentTimeMillis()), start, end);
   }
 
   /**
@@ -138,7 +138,7 @@ public class DateCompareUtils {
    * @return 在该时间内返回 true, 否则返回 false
    */
   public static boolean isNowAfterDateIn(Date date, long millis) {
-    long diff = System.currentTimeMillis() - date.getTime();
+    long diff = DateProvider.currentTimeMillis() - date.getTime();
     return diff > 0 && diff < millis;
   }
 
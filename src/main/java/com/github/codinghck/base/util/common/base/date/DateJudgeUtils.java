@@ -18,7 +18,7 @@ public class DateJudgeUtils {
    * @return 是否是工作日
    */
   public static boolean isWeek() {
-    return isWeek(new Date());
+    return isWeek(new Date(DateProvider.currentTimeMillis()));
   }
 
   /**
@@ -38,7 +38,7 @@ public class DateJudgeUtils {
    * @return 是否是周末
    */
   public static boolean isWeekend() {
-    WeekDay weekDay = dayForWeek(new Date());
+    WeekDay weekDay = dayForWeek(new Date(DateProvider.currentTimeMillis()));
     return isWeekend(weekDay);
   }
 
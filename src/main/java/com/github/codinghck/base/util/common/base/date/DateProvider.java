@@ -4,6 +4,7 @@ import com.github.codinghck.base.util.common.base.str.StrConst;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import org.springframework.util.Assert;
 
 /**
  * @author hck 2019-01-30 22:16
@@ -11,8 +12,38 @@ import java.util.Date;
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class DateProvider {
 
+  private static volatile Clock clock = Clock.system();
+
   private DateProvider() {}
 
+  /**
+   * <p>设置获取当前时间使用的时钟, 默认为系统时钟; 测试时可以设置为 {@link ManualClock}</p>
+   *
+   * @param clock 时钟
+   */
+  public static void setClock(Clock clock) {
+    Assert.notNull(clock, "clock 不能为 null");
+    DateProvider.clock = clock;
+  }
+
+  /**
+   * <p>获取当前使用的时钟</p>
+   *
+   * @return 时钟
+   */
+  public static Clock getClock() {
+    return clock;
+  }
+
+  /**
+   * <p>获取当前时间的毫秒值</p>
+   *
+   * @return 当前时间的毫秒值
+   */
+  public static long currentTimeMillis() {
+    return clock.millis();
+  }
+
   /**
    * <p>根据默认的日期格式获取当前的日期字符串</p>
    *
@@ -29,7 +60,7 @@ public class DateProvider {
    * @return 当前的日期字符串
    */
   public static String currTimeStr(String pattern) {
-    return new SimpleDateFormat(pattern).format(new Date());
+    return new SimpleDateFormat(pattern).format(new Date(clock.millis()));
   }
 
   /**
@@ -38,7 +69,7 @@ public class DateProvider {
    * @return 当前系统时间的秒值
    */
   public static long currentTimeSeconds() {
-    return System.currentTimeMillis() / 1000;
+    return clock.millis() / 1000;
   }
 
   /**
@@ -47,7 +78,7 @@ public class DateProvider {
    * @return 上一个工作日的日期
    */
   public static Date preWeekDay() {
-    Date today = new Date();
+    Date today = new Date(clock.millis());
     WeekDay weekDay = DateJudgeUtils.dayForWeek(today);
     int preIdx = -1;
     switch (weekDay) {
@@ -88,7 +119,7 @@ public class DateProvider {
    * @return 日期对象
    */
   public static Date getByToday(int idx) {
-    return getByDay(new Date(), idx);
+    return getByDay(new Date(clock.millis()), idx);
   }
 
   /**
@@ -160,7 +191,7 @@ public class DateProvider {
    * @return 日期对象
    */
   public static Date getByBaseDayForMonthStep(int idx) {
-    return getByBaseDayForMonthStep(new Date(), idx);
+    return getByBaseDayForMonthStep(new Date(clock.millis()), idx);
   }
 
   /**
@@ -193,7 +224,7 @@ public class DateProvider {
    * @return 日期对象
    */
   public static Date getByBaseDayForDayOfMonth(int dayOfMonth) {
-    return getByBaseDayForDayOfMonth(new Date(), dayOfMonth);
+    return getByBaseDayForDayOfMonth(new Date(clock.millis()), dayOfMonth);
   }
 
   /**
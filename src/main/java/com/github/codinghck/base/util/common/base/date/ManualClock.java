@@ -0,0 +1,52 @@
+package com.github.codinghck.base.util.common.base.date;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>手动控制的时钟, 时间只在调用 {@link #set(long)} 或 {@link #advance(long)} 时变化, 用于测试过期等逻辑</p>
+ *
+ * @author hck 2026-10-17 20:00
+ */
+@SuppressWarnings("unused")
+public final class ManualClock implements Clock {
+
+  private final AtomicLong now;
+
+  /**
+   * <p>以当前系统时间为初始时间</p>
+   */
+  public ManualClock() {
+    this(System.currentTimeMillis());
+  }
+
+  /**
+   * @param millis 初始时间毫秒数
+   */
+  public ManualClock(long millis) {
+    this.now = new AtomicLong(millis);
+  }
+
+  @Override
+  public long millis() {
+    return now.get();
+  }
+
+  /**
+   * <p>设置当前时间</p>
+   *
+   * @param millis 时间毫秒数
+   */
+  public void set(long millis) {
+    now.set(millis);
+  }
+
+  /**
+   * <p>把时间向后推进</p>
+   *
+   * @param millis 推进的毫秒数
+   * @return 推进后的时间毫秒数
+   */
+  public long advance(long millis) {
+    return now.addAndGet(millis);
+  }
+}
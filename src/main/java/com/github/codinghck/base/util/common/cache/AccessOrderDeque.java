@@ -0,0 +1,86 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>按访问顺序排列缓存条目的双向链表, 表头是最久未访问的条目</p>
+ * <p>直接使用 {@link CacheEntry} 上的指针, 增删和移动都是 O(1) 且不产生额外对象.
+ * 本类不是线程安全的, 调用方需要持有所属分段的锁
+ *
+ * @author hck 2026-10-17 11:15
+ */
+final class AccessOrderDeque<K, V> {
+
+  private final CacheEntry<K, V> head = CacheEntry.sentinel();
+
+  AccessOrderDeque() {
+    head.prevInAccess = head;
+    head.nextInAccess = head;
+  }
+
+  boolean isEmpty() {
+    return head.nextInAccess == head;
+  }
+
+  /**
+   * @return 最久未访问的条目, 链表为空时返回 {@code null}
+   */
+  CacheEntry<K, V> peekFirst() {
+    return isEmpty() ? null : head.nextInAccess;
+  }
+
+  /**
+   * @return 最近访问的条目, 链表为空时返回 {@code null}
+   */
+  CacheEntry<K, V> peekLast() {
+    return isEmpty() ? null : head.prevInAccess;
+  }
+
+  void addLast(CacheEntry<K, V> entry) {
+    entry.prevInAccess = head.prevInAccess;
+    entry.nextInAccess = head;
+    head.prevInAccess.nextInAccess = entry;
+    head.prevInAccess = entry;
+  }
+
+  void remove(CacheEntry<K, V> entry) {
+    if (entry.nextInAccess != null) {
+      entry.nextInAccess.prevInAccess = entry.prevInAccess;
+      entry.prevInAccess.nextInAccess = entry.nextInAccess;
+      entry.nextInAccess = null;
+      entry.prevInAccess = null;
+    }
+  }
+
+  void moveToBack(CacheEntry<K, V> entry) {
+    if (entry.nextInAccess != null && entry != head.prevInAccess) {
+      remove(entry);
+      addLast(entry);
+    }
+  }
+
+  /**
+   * <p>用新条目替换旧条目在链表中的位置</p>
+   *
+   * @param old 链表中的旧条目
+   * @param entry 新条目
+   */
+  void replace(CacheEntry<K, V> old, CacheEntry<K, V> entry) {
+    entry.prevInAccess = old.prevInAccess;
+    entry.nextInAccess = old.nextInAccess;
+    old.prevInAccess.nextInAccess = entry;
+    old.nextInAccess.prevInAccess = entry;
+    old.prevInAccess = null;
+    old.nextInAccess = null;
+  }
+
+  void clear() {
+    CacheEntry<K, V> entry = head.nextInAccess;
+    while (entry != head) {
+      CacheEntry<K, V> next = entry.nextInAccess;
+      entry.prevInAccess = null;
+      entry.nextInAccess = null;
+      entry = next;
+    }
+    head.prevInAccess = head;
+    head.nextInAccess = head;
+  }
+}
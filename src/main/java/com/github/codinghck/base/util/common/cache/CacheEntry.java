@@ -0,0 +1,132 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * <p>缓存条目, 除了键值外还记录写入时间和过期时间</p>
+ * <p>软引用或弱引用模式下只通过 {@link ValueReference} 持有值, 值被回收后 {@link #getValue()} 返回 {@code null},
+ * 此时条目应当视为不存在
+ * <p>{@code prevInWheel} 和 {@code nextInWheel} 用于把条目挂到 {@link TimerWheel} 的桶上,
+ * {@code prevInAccess}, {@code nextInAccess}, {@code queue} 和 {@code weight} 用于容量淘汰,
+ * 都只能在持有所属分段锁时访问
+ *
+ * @author hck 2026-10-17 10:12
+ */
+final class CacheEntry<K, V> implements Map.Entry<K, V> {
+
+  static final byte WINDOW = 0;
+  static final byte PROBATION = 1;
+  static final byte PROTECTED = 2;
+
+  private static final AtomicIntegerFieldUpdater<CacheEntry> REFRESHING =
+      AtomicIntegerFieldUpdater.newUpdater(CacheEntry.class, "refreshing");
+
+  final K key;
+  private final Object value;
+  final long writeTime;
+  final long expireAt;
+
+  CacheEntry<K, V> prevInWheel;
+  CacheEntry<K, V> nextInWheel;
+  CacheEntry<K, V> prevInAccess;
+  CacheEntry<K, V> nextInAccess;
+  byte queue;
+  int weight;
+
+  private volatile int refreshing;
+
+  CacheEntry(K key, V value, long now, long ttl) {
+    this.key = key;
+    this.value = value;
+    this.writeTime = now;
+    this.expireAt = now + ttl;
+  }
+
+  CacheEntry(K key, ValueReference<K, V> valueReference, long now, long ttl) {
+    this.key = key;
+    this.value = valueReference;
+    this.writeTime = now;
+    this.expireAt = now + ttl;
+  }
+
+  /**
+   * <p>创建时间轮桶的哨兵节点</p>
+   *
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 首尾相连的哨兵节点
+   */
+  static <K, V> CacheEntry<K, V> sentinel() {
+    CacheEntry<K, V> sentinel = new CacheEntry<>(null, (V) null, 0L, 0L);
+    sentinel.prevInWheel = sentinel;
+    sentinel.nextInWheel = sentinel;
+    return sentinel;
+  }
+
+  /**
+   * <p>值引用, 强引用模式下返回 {@code null}</p>
+   */
+  @SuppressWarnings("unchecked")
+  ValueReference<K, V> valueReference() {
+    return value instanceof ValueReference ? (ValueReference<K, V>) value : null;
+  }
+
+  boolean isExpired(long now) {
+    return now >= expireAt;
+  }
+
+  long ttl() {
+    return expireAt - writeTime;
+  }
+
+  /**
+   * <p>尝试把条目标记为正在刷新, 保证同一个条目只会触发一次刷新</p>
+   *
+   * @return 标记成功返回 {@code true}
+   */
+  boolean casRefreshing() {
+    return refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+  }
+
+  void clearRefreshing() {
+    refreshing = 0;
+  }
+
+  @Override
+  public K getKey() {
+    return key;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V getValue() {
+    Object v = value;
+    return v instanceof ValueReference ? ((ValueReference<K, V>) v).get() : (V) v;
+  }
+
+  @Override
+  public V setValue(V value) {
+    throw new UnsupportedOperationException("缓存条目不支持直接修改, 请使用 put 方法");
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Map.Entry)) {
+      return false;
+    }
+    Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+    return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+  }
+
+  @Override
+  public String toString() {
+    return key + "=" + getValue();
+  }
+}
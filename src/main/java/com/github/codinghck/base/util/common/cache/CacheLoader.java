@@ -0,0 +1,40 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>缓存未命中时用于加载值的回调</p>
+ *
+ * @author hck 2026-10-17 13:20
+ */
+public interface CacheLoader<K, V> {
+
+  /**
+   * <p>加载单个键对应的值</p>
+   *
+   * @param key 键
+   * @return 加载到的值, 返回 {@code null} 表示不存在, 不会放入缓存
+   * @throws Exception 加载失败时抛出, 会被包装为 {@code CacheLoadException}
+   */
+  V load(K key) throws Exception;
+
+  /**
+   * <p>批量加载, 默认逐个调用 {@link #load(Object)}, 后端支持批量查询时应覆盖本方法</p>
+   *
+   * @param keys 需要加载的键
+   * @return 加载到的键值对, 不存在的键可以不放入结果
+   * @throws Exception 加载失败时抛出, 会被包装为 {@code CacheLoadException}
+   */
+  default Map<K, V> loadAll(Collection<? extends K> keys) throws Exception {
+    Map<K, V> result = new HashMap<>(keys.size() * 2);
+    for (K key : keys) {
+      V value = load(key);
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
+}
@@ -1,123 +1,1205 @@
 package com.github.codinghck.base.util.common.cache;
 
-import lombok.EqualsAndHashCode;
-import lombok.ToString;
+import com.github.codinghck.base.util.common.base.date.Clock;
+import com.github.codinghck.base.util.common.exception.CacheLoadException;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.util.Assert;
 
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
- * 用来存储短暂对象的缓存类，实现Map接口，内部有一个定时器用来清除过期（30秒）的对象。
- * 为避免创建过多线程，没有特殊要求请使用getDefault()方法来获取本类的实例
+ * 用来存储短暂对象的缓存类，实现Map接口，过期（默认30秒）的对象由所有缓存共用的一个守护线程清除。
+ * 没有特殊要求请使用getDefault()方法来获取本类的实例，需要多个不同配置的缓存时通过
+ * {@link CacheRegistry} 按名称管理，不再使用的缓存需要调用 {@link #close()}
+ * <p>内部使用 {@code ConcurrentHashMap} 存储，读操作无锁，写操作只锁定键所在的分段，
+ * 每个条目可以通过 {@link #put(Object, Object, long)} 单独指定过期时间
+ * <p>过期条目由每个分段的 {@link TimerWheel} 在接近过期时间时移除，读取时也会检查是否过期，
+ * 因此不会返回已过期的值
+ * <p>需要限制条目数量时，通过 {@link #newBuilder()} 设置最大条目数，或者设置 {@link Weigher}
+ * 和最大总权重，超出后按 W-TinyLFU 策略淘汰，见 {@link CacheSegment}；上限针对整个缓存，
+ * 分段自己淘汰不够时从其他分段中借用，单个条目的权重只要不超过上限就可以放入
+ * <p>{@link #putAll(Map)} 和 {@link #invalidateAll(Collection)} 把键按分段分组，每个分段的锁在一批操作中只获取一次
+ * <p>{@link #get(Object, CacheLoader)} 等加载方法在未命中时调用 {@link CacheLoader}，
+ * 同一个键的并发加载只会执行一次，其他线程等待并共享这次加载的结果，避免缓存击穿
+ * <p>设置了 {@link CacheMapBuilder#refreshAfterWrite(long)} 时，写入超过该时间的条目被读取时
+ * 仍然返回旧值，同时在线程池中异步重新加载，热点键不会因为过期而阻塞在加载上
+ * <p>可以通过 {@link CacheSnapshot} 把缓存写入文件，重启后用
+ * {@link CacheMapBuilder#warmFrom(CacheSnapshot)} 按需从快照中恢复条目, 预热结束后快照被关闭
+ * <p>通过 {@link CacheMapBuilder#removalListener(RemovalListener)} 可以在条目过期、被淘汰或被替换时收到回调，
+ * 回调在线程池中批量执行
+ * <p>通过 {@link CacheMapBuilder#negativeCaching(long, long)} 开启否定缓存后，加载器返回 {@code null} 的键
+ * 在较短的时间内被记录为不存在，之后的加载方法直接返回 {@code null}；这些记录存放在单独的缓存中，
+ * 有自己的过期时间和最大条目数，不会挤占正常的条目
+ * <p>设置了 {@link CacheMapBuilder#softValues()} 或 {@link CacheMapBuilder#weakValues()} 时，值被垃圾回收后
+ * 条目视为不存在，并在之后的写入和定期清理中通过引用队列分批移除，不需要扫描整个缓存
+ * <p>开启 {@link CacheMapBuilder#recordStats()} 后，可以通过 {@link #stats()} 获取命中、加载和淘汰等统计，
+ * 也可以通过 {@link #registerMBean(String)} 把统计注册为 JMX MBean
  *
  * @author hck 2018/11/29 10:12 AM
  */
+@Slf4j
 @SuppressWarnings("unused")
-public class CacheMap<K, V> extends AbstractMap<K, V> {
+public class CacheMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
 
-  private static final long DEFAULT_TIMEOUT = 30000;
-  private static CacheMap<Object, Object> defaultInstance;
+  private static final long DEFAULT_TIMEOUT = CacheMapBuilder.DEFAULT_EXPIRE_MILLIS;
+  private static final int MAX_SEGMENTS = 1 << 16;
+  private static final int MIN_SEGMENT_CAPACITY = 16;
+  private static final String MBEAN_NAME_PREFIX = "com.github.codinghck.base.util.cache:type=CacheMap,name=";
+  private static final String DEFAULT_NAME_PREFIX = "default-";
+  private static final int WRITE_DRAIN_LIMIT = 16;
 
   public static CacheMap<Object, Object> getDefault() {
     return getDefault(DEFAULT_TIMEOUT);
   }
 
-  public static synchronized CacheMap<Object, Object> getDefault(long millis) {
-    if (defaultInstance == null) {
-      defaultInstance = new CacheMap<>(millis);
+  /**
+   * <p>获取指定过期时间的默认缓存, 相同过期时间共用一个实例, 注册在 {@link CacheRegistry} 中</p>
+   *
+   * @param millis 过期毫秒数
+   * @return 缓存实例
+   */
+  public static CacheMap<Object, Object> getDefault(long millis) {
+    return CacheRegistry.getOrCreate(DEFAULT_NAME_PREFIX + millis,
+        () -> CacheMap.newBuilder().expireAfterWrite(millis));
+  }
+
+  /**
+   * <p>获取构建器, 用于创建自定义配置的缓存</p>
+   *
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 构建器
+   */
+  public static <K, V> CacheMapBuilder<K, V> newBuilder() {
+    return new CacheMapBuilder<>();
+  }
+
+  private long cacheTimeout;
+  private final ConcurrentHashMap<K, CacheEntry<K, V>> map;
+  private final CacheSegment<K, V>[] segments;
+  private final int segmentMask;
+  private final AtomicLong totalWeight;
+  private final long maximum;
+  private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+  private final Executor executor;
+  private final long refreshAfterWriteMillis;
+  private final CacheLoader<? super K, ? extends V> defaultLoader;
+  private volatile CacheSnapshot<K, V> snapshot;
+  private final long snapshotDeadline;
+  private final StatsCounter stats;
+  private final Clock clock;
+  private final ValueReference.Strength valueStrength;
+  private final ReferenceQueue<V> valueQueue;
+  private final RemovalNotifier<K, V> notifier;
+  private final CacheMap<K, Boolean> absent;
+  private final ScheduledFuture<?> cleanUpTask;
+  private volatile String registeredName;
+  /**
+   * 通过 {@link #registerMBean(String)} 注册的 MBean, 关闭时注销
+   */
+  private final Set<ObjectName> mbeanNames = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed;
+  private Set<Entry<K, V>> entrySetView;
+  private Set<K> keySetView;
+  private Collection<V> valuesView;
+
+  @SuppressWarnings("unchecked")
+  CacheMap(CacheMapBuilder<K, V> builder) {
+    this.cacheTimeout = builder.expireAfterWriteMillis;
+    int cores = Runtime.getRuntime().availableProcessors();
+    this.map = new ConcurrentHashMap<>(16, 0.75f, cores);
+    long maximum = builder.weigher != null ? builder.maximumWeight : builder.maximumSize;
+    int segmentCount = ceilingPowerOfTwo(Math.min(cores * 4, MAX_SEGMENTS));
+    while (maximum >= 0 && segmentCount > 1 && segmentCount * MIN_SEGMENT_CAPACITY > maximum) {
+      segmentCount >>>= 1;
+    }
+    this.clock = builder.clock;
+    this.valueStrength = builder.valueStrength;
+    this.valueQueue = valueStrength == ValueReference.Strength.STRONG ? null : new ReferenceQueue<>();
+    long now = clock.millis();
+    this.stats = new StatsCounter(builder.recordStats);
+    this.notifier = builder.removalListener == null ? null
+        : new RemovalNotifier<>(builder.removalListener, builder.executor);
+    this.maximum = maximum;
+    this.totalWeight = maximum < 0 ? null : new AtomicLong();
+    this.segments = new CacheSegment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      long share = maximum < 0 ? maximum
+          : maximum / segmentCount + (i < maximum % segmentCount ? 1 : 0);
+      segments[i] = new CacheSegment<>(map, now, share, totalWeight, maximum, builder.weigher, stats, notifier);
     }
-    return defaultInstance;
+    this.segmentMask = segmentCount - 1;
+    this.executor = builder.executor;
+    this.refreshAfterWriteMillis = builder.refreshAfterWriteMillis;
+    this.defaultLoader = builder.loader;
+    this.snapshot = builder.snapshot;
+    this.snapshotDeadline = now + builder.warmUpMillis;
+    this.absent = builder.negativeExpireMillis == CacheMapBuilder.UNSET ? null
+        : CacheMap.<K, Boolean>newBuilder()
+            .expireAfterWrite(builder.negativeExpireMillis)
+            .maximumSize(builder.negativeMaximumSize)
+            .clock(clock)
+            .executor(executor)
+            .build();
+    this.cleanUpTask = CacheScheduler.schedule(this, CacheMap::cleanUp);
   }
 
-  @ToString
-  @EqualsAndHashCode
-  private class CacheEntry implements Entry<K, V> {
-    long time;
-    V value;
-    K key;
+  /**
+   * <p>返回条目的实时视图, 不复制条目; 迭代是弱一致的, 不会抛出 {@code ConcurrentModificationException},
+   * 并跳过迭代时已过期的条目</p>
+   */
+  @NotNull
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> view = entrySetView;
+    return view != null ? view : (entrySetView = new EntrySetView());
+  }
+
+  /**
+   * <p>返回键的实时视图, 特性同 {@link #entrySet()}</p>
+   */
+  @NotNull
+  @Override
+  public Set<K> keySet() {
+    Set<K> view = keySetView;
+    return view != null ? view : (keySetView = new KeySetView());
+  }
+
+  /**
+   * <p>返回值的实时视图, 特性同 {@link #entrySet()}</p>
+   */
+  @NotNull
+  @Override
+  public Collection<V> values() {
+    Collection<V> view = valuesView;
+    return view != null ? view : (valuesView = new ValuesView());
+  }
+
+  /**
+   * <p>返回存储中的条目数, 时间复杂度 O(1)</p>
+   * <p>已过期但还没有被清理的条目也会被计入, 它们最多在一个时间轮刻度 ({@link TimerWheel#TICK_MILLIS}) 后被移除
+   */
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  /**
+   * <p>判断是否存在未过期的条目, 不计入统计, 也不影响淘汰顺序</p>
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && peek(key) != null;
+  }
+
+  /**
+   * <p>读取未过期的值, 键为 {@code null} 时返回 {@code null}</p>
+   */
+  @Override
+  public V get(Object key) {
+    return key == null ? null : getIfPresent(key, defaultLoader);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return put(key, value, cacheTimeout);
+  }
 
-    CacheEntry(K key, V value) {
-      super();
-      this.value = value;
-      this.key = key;
-      this.time = System.currentTimeMillis();
+  /**
+   * <p>放入缓存, 并为该条目单独指定过期时间</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @param ttl 过期毫秒数, 从放入时开始计算
+   * @return 放入的值
+   */
+  public V put(K key, V value, long ttl) {
+    Assert.notNull(key, "key 不能为 null");
+    Assert.notNull(value, "value 不能为 null");
+    Assert.isTrue(ttl > 0, "ttl 必须大于 0");
+    Assert.state(!closed, "缓存已关闭");
+    CacheEntry<K, V> entry = newEntry(key, value, clock.millis(), ttl);
+    CacheSegment<K, V> segment = segmentFor(key);
+    segment.lock();
+    try {
+      invalidateSnapshot(key);
+      segment.put(entry);
+    } finally {
+      segment.unlock();
     }
+    evictOverflow(segment);
+    clearAbsent(key);
+    stats.recordPut();
+    drainValueQueue(WRITE_DRAIN_LIMIT);
+    return value;
+  }
 
-    @Override
-    public K getKey() {
-      return key;
+  /**
+   * <p>键不存在或已过期时放入, 使用默认的过期时间; 检查和写入在键所在分段的锁内完成, 并发调用时只有一个成功</p>
+   * <p>预热期间快照中存在的键视为已存在, 快照中的值被放入缓存并返回
+   *
+   * @param key 键
+   * @param value 值
+   * @return 已存在的未过期的值, 放入成功时返回 {@code null}
+   */
+  @Override
+  public V putIfAbsent(K key, V value) {
+    Assert.notNull(key, "key 不能为 null");
+    Assert.notNull(value, "value 不能为 null");
+    Assert.state(!closed, "缓存已关闭");
+    if (snapshot != null) {
+      V restored = loadFromSnapshot(key);
+      if (restored != null) {
+        return restored;
+      }
     }
+    long now = clock.millis();
+    CacheSegment<K, V> segment = segmentFor(key);
+    segment.lock();
+    try {
+      CacheEntry<K, V> existing = map.get(key);
+      V existingValue = existing == null || existing.isExpired(now) ? null : existing.getValue();
+      if (existingValue != null) {
+        return existingValue;
+      }
+      invalidateSnapshot(key);
+      segment.put(newEntry(key, value, now, cacheTimeout));
+    } finally {
+      segment.unlock();
+    }
+    evictOverflow(segment);
+    clearAbsent(key);
+    stats.recordPut();
+    drainValueQueue(WRITE_DRAIN_LIMIT);
+    return null;
+  }
 
-    @Override
-    public V getValue() {
+  /**
+   * <p>获取缓存的值, 未命中时调用 {@code loader} 加载并放入缓存</p>
+   * <p>同一个键同时只会有一次加载, 并发未命中的线程会等待并共享这次加载的结果
+   *
+   * @param key 键
+   * @param loader 加载器
+   * @return 缓存或加载到的值, 加载器返回 {@code null} 时返回 {@code null}
+   * @throws CacheLoadException 加载失败时抛出
+   */
+  public V get(K key, CacheLoader<? super K, ? extends V> loader) {
+    V value = getIfPresent(key, loader);
+    if (value != null || isMarkedAbsent(key)) {
       return value;
     }
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+    if (inFlight != null) {
+      return join(key, inFlight);
+    }
+    load(key, loader, future);
+    return join(key, future);
+  }
 
-    @Override
-    public V setValue(V value) {
-      return this.value = value;
+  /**
+   * <p>异步获取缓存的值, 未命中时在线程池中调用 {@code loader} 加载并放入缓存</p>
+   * <p>与 {@link #get(Object, CacheLoader)} 共享同一个键的加载过程
+   *
+   * @param key 键
+   * @param loader 加载器
+   * @return 完成时得到缓存或加载到的值, 加载失败时以 {@code CacheLoadException} 异常完成
+   */
+  public CompletableFuture<V> getAsync(K key, CacheLoader<? super K, ? extends V> loader) {
+    V value = getIfPresent(key, loader);
+    if (value != null || isMarkedAbsent(key)) {
+      return CompletableFuture.completedFuture(value);
+    }
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+    if (inFlight != null) {
+      return inFlight;
+    }
+    try {
+      executor.execute(() -> load(key, loader, future));
+    } catch (RuntimeException e) {
+      loading.remove(key, future);
+      future.completeExceptionally(new CacheLoadException("提交加载任务失败, key: " + key, e));
     }
+    return future;
   }
 
-  private class ClearThread extends Thread {
-    ClearThread() {
-      setName("clear cache thread");
+  /**
+   * <p>批量获取缓存的值, 所有未命中且没有正在加载的键通过一次 {@link CacheLoader#loadAll} 加载</p>
+   *
+   * @param keys 键
+   * @param loader 加载器
+   * @return 缓存或加载到的键值对, 不包含值不存在的键
+   * @throws CacheLoadException 加载失败时抛出
+   */
+  public Map<K, V> getAll(Collection<? extends K> keys, CacheLoader<? super K, ? extends V> loader) {
+    Map<K, V> result = new LinkedHashMap<>(keys.size() * 2);
+    Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+    Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+    for (K key : keys) {
+      V value = getIfPresent(key, loader);
+      if (value != null) {
+        result.put(key, value);
+        continue;
+      }
+      if (isMarkedAbsent(key)) {
+        continue;
+      }
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+      if (inFlight == null) {
+        owned.put(key, future);
+      } else {
+        waiting.put(key, inFlight);
+      }
+    }
+    if (!owned.isEmpty()) {
+      loadAll(owned, loader);
     }
+    for (Map<K, CompletableFuture<V>> futures : Arrays.asList(owned, waiting)) {
+      for (Entry<K, CompletableFuture<V>> e : futures.entrySet()) {
+        V value = join(e.getKey(), e.getValue());
+        if (value != null) {
+          result.put(e.getKey(), value);
+        }
+      }
+    }
+    return result;
+  }
 
-    @Override
-//    @SuppressWarnings("all")
-    public void run() {
-      while (true) {
-          long now = System.currentTimeMillis();
-          Object[] keys = map.keySet().toArray();
-          for (Object key : keys) {
-            CacheEntry entry = map.get(key);
-            if (now - entry.time >= cacheTimeout) {
-              synchronized (map) {
-                map.remove(key);
-              }
-            }
-          }
-        try {
-          Thread.sleep(cacheTimeout);
-        } catch (InterruptedException ignored) {
+  /**
+   * <p>批量获取缓存中已有的值, 不触发加载</p>
+   *
+   * @param keys 键
+   * @return 命中的键值对, 不包含未命中的键
+   */
+  public Map<K, V> getAll(Collection<? extends K> keys) {
+    Map<K, V> result = new LinkedHashMap<>(keys.size() * 2);
+    for (K key : keys) {
+      V value = key == null ? null : getIfPresent(key, defaultLoader);
+      if (value != null) {
+        result.put(key, value);
+      }
+    }
+    return result;
+  }
 
+  /**
+   * <p>批量放入缓存, 所有条目使用同一个写入时间和默认的过期时间</p>
+   * <p>键按分段分组, 每个分段的锁在整批写入中只获取一次
+   *
+   * @param m 键值对
+   */
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    if (m.isEmpty()) {
+      return;
+    }
+    Assert.state(!closed, "缓存已关闭");
+    long now = clock.millis();
+    List<CacheEntry<K, V>>[] groups = newGroups();
+    for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+      Assert.notNull(e.getKey(), "key 不能为 null");
+      Assert.notNull(e.getValue(), "value 不能为 null");
+      group(groups, e.getKey()).add(newEntry(e.getKey(), e.getValue(), now, cacheTimeout));
+    }
+    for (int i = 0; i < groups.length; i++) {
+      if (groups[i] == null) {
+        continue;
+      }
+      CacheSegment<K, V> segment = segments[i];
+      segment.lock();
+      try {
+        for (CacheEntry<K, V> entry : groups[i]) {
+          invalidateSnapshot(entry.key);
+          segment.put(entry);
         }
+      } finally {
+        segment.unlock();
       }
     }
+    evictOverflow(null);
+    if (absent != null && !absent.isEmpty()) {
+      absent.invalidateAll(m.keySet());
+    }
+    stats.recordPuts(m.size());
+    drainValueQueue(WRITE_DRAIN_LIMIT);
   }
 
-  private long cacheTimeout;
-  private final Map<K, CacheEntry> map = new HashMap<>();
+  /**
+   * <p>批量移除键对应的条目, 键按分段分组, 每个分段的锁只获取一次</p>
+   *
+   * @param keys 键
+   */
+  public void invalidateAll(Collection<?> keys) {
+    List<Object>[] groups = newGroups();
+    for (Object key : keys) {
+      if (key != null) {
+        group(groups, key).add(key);
+      }
+    }
+    for (int i = 0; i < groups.length; i++) {
+      if (groups[i] == null) {
+        continue;
+      }
+      CacheSegment<K, V> segment = segments[i];
+      segment.lock();
+      try {
+        for (Object key : groups[i]) {
+          invalidateSnapshot(key);
+          segment.remove(key);
+        }
+      } finally {
+        segment.unlock();
+      }
+    }
+    if (absent != null && !absent.isEmpty()) {
+      absent.invalidateAll(keys);
+    }
+  }
 
-  private CacheMap(long timeout) {
-    this.cacheTimeout = timeout;
-    new ClearThread().start();
+  /**
+   * <p>移除键对应的条目, 键为 {@code null} 时返回 {@code null}</p>
+   */
+  @Override
+  public V remove(Object key) {
+    if (key == null) {
+      return null;
+    }
+    CacheSegment<K, V> segment = segmentFor(key);
+    CacheEntry<K, V> old;
+    segment.lock();
+    try {
+      invalidateSnapshot(key);
+      old = segment.remove(key);
+    } finally {
+      segment.unlock();
+    }
+    clearAbsent(key);
+    return old == null || old.isExpired(clock.millis()) ? null : old.getValue();
   }
 
-  @NotNull
   @Override
-  public Set<Entry<K, V>> entrySet() {
-    Set<Entry<K, V>> entrySet = new HashSet<>();
-    Set<Entry<K, CacheEntry>> wrapEntrySet = map.entrySet();
-    for (Entry<K, CacheEntry> entry : wrapEntrySet) {
-      entrySet.add(entry.getValue());
+  public boolean remove(Object key, Object value) {
+    if (key == null || value == null) {
+      return false;
+    }
+    CacheSegment<K, V> segment = segmentFor(key);
+    segment.lock();
+    try {
+      CacheEntry<K, V> entry = map.get(key);
+      if (entry == null || entry.isExpired(clock.millis()) || !value.equals(entry.getValue())) {
+        return false;
+      }
+      invalidateSnapshot(key);
+      segment.remove(key);
+      return true;
+    } finally {
+      segment.unlock();
     }
-    return entrySet;
   }
 
   @Override
-  public V get(Object key) {
-    CacheEntry entry = map.get(key);
-    return entry == null ? null : entry.value;
+  public void clear() {
+    for (CacheSegment<K, V> segment : segments) {
+      segment.lock();
+    }
+    try {
+      if (notifier != null) {
+        for (CacheEntry<K, V> entry : map.values()) {
+          notifier.offer(entry.key, entry.getValue(), RemovalCause.EXPLICIT);
+        }
+      }
+      // 持有所有分段锁, 此时的条目数是准确的
+      stats.recordRemovals(RemovalCause.EXPLICIT, map.size());
+      map.clear();
+      for (CacheSegment<K, V> segment : segments) {
+        segment.clear();
+      }
+    } finally {
+      for (CacheSegment<K, V> segment : segments) {
+        segment.unlock();
+      }
+    }
+    if (absent != null) {
+      absent.clear();
+    }
   }
 
+  /**
+   * <p>关闭缓存: 停止清理任务, 清空所有条目, 并从 {@link CacheRegistry} 中注销,
+   * 通过 {@link #registerMBean(String)} 注册的 MBean 也一并注销</p>
+   * <p>关闭后仍可以读取 (总是未命中), 写入时抛出 {@code IllegalStateException}; 重复关闭没有影响
+   */
   @Override
-  public V put(K key, V value) {
-    CacheEntry entry = new CacheEntry(key, value);
-    synchronized (map) {
-      map.put(key, entry);
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    releaseSnapshot(snapshot);
+    cleanUpTask.cancel(false);
+    String name = registeredName;
+    if (name != null) {
+      CacheRegistry.unregister(name, this);
+    }
+    unregisterMBeans();
+    clear();
+    if (absent != null) {
+      absent.close();
+    }
+  }
+
+  /**
+   * <p>把键记录为不存在, 需要开启 {@link CacheMapBuilder#negativeCaching(long, long)}</p>
+   * <p>同时移除该键的正常条目; 之后在不存在记录过期, 或者该键被写入, 移除之前,
+   * 加载方法对该键直接返回 {@code null}. 数据源中新增了该键时, 需要调用 {@link #remove(Object)}
+   * 或 {@link #put(Object, Object)} 清除记录
+   *
+   * @param key 键
+   */
+  public void markAbsent(K key) {
+    Assert.notNull(key, "key 不能为 null");
+    Assert.state(absent != null, "没有开启否定缓存");
+    CacheSegment<K, V> segment = segmentFor(key);
+    segment.lock();
+    try {
+      invalidateSnapshot(key);
+      segment.remove(key);
+    } finally {
+      segment.unlock();
+    }
+    absent.put(key, Boolean.TRUE);
+  }
+
+  /**
+   * <p>判断键是否被记录为不存在, 存在未过期的正常条目时总是返回 {@code false}</p>
+   *
+   * @param key 键
+   * @return 是否被记录为不存在, 没有开启否定缓存时返回 {@code false}
+   */
+  public boolean isKnownAbsent(Object key) {
+    return key != null && absent != null && absent.containsKey(key) && peek(key) == null;
+  }
+
+  /**
+   * <p>获取当前记录的不存在的键数, 可能包含已过期但尚未清理的记录</p>
+   *
+   * @return 记录数, 没有开启否定缓存时返回 0
+   */
+  public long estimatedAbsentSize() {
+    return absent == null ? 0L : absent.estimatedSize();
+  }
+
+  /**
+   * <p>是否已经关闭</p>
+   *
+   * @return 调用过 {@link #close()} 时返回 {@code true}
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * <p>获取统计数据的快照, 需要在构建时开启 {@link CacheMapBuilder#recordStats()}</p>
+   *
+   * @return 统计快照
+   */
+  public CacheStats stats() {
+    return stats.snapshot();
+  }
+
+  /**
+   * <p>获取存储中的条目数, 可能包含已过期但尚未清理的条目</p>
+   *
+   * @return 条目数
+   */
+  public long estimatedSize() {
+    return map.mappingCount();
+  }
+
+  /**
+   * <p>把统计数据注册为平台 MBeanServer 上的 {@link CacheStatsMXBean}</p>
+   *
+   * @param name MBean 名称, 对应 ObjectName 中的 name 属性
+   * @return 注册使用的 ObjectName, 可用于提前注销; {@link #close()} 时自动注销
+   * @throws JMException 名称不合法或已被注册时抛出
+   */
+  public ObjectName registerMBean(String name) throws JMException {
+    Assert.hasText(name, "name 不能为空");
+    Assert.state(!closed, "缓存已关闭");
+    ObjectName objectName = new ObjectName(MBEAN_NAME_PREFIX + ObjectName.quote(name));
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.registerMBean(new CacheStatsMXBeanImpl(this), objectName);
+    mbeanNames.add(objectName);
+    return objectName;
+  }
+
+  private void unregisterMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName objectName : mbeanNames) {
+      try {
+        server.unregisterMBean(objectName);
+      } catch (InstanceNotFoundException e) {
+        // 调用方已经自行注销
+      } catch (JMException e) {
+        log.warn("注销缓存 MBean 失败: {}", objectName, e);
+      }
+    }
+    mbeanNames.clear();
+  }
+
+  /**
+   * <p>推进所有分段的时间轮, 移除已到期的条目, 并回放积攒的读记录</p>
+   * <p>分段锁被其他线程持有时跳过该分段, 留待下一次清理
+   */
+  public void cleanUp() {
+    drainValueQueue(Integer.MAX_VALUE);
+    long now = clock.millis();
+    CacheSnapshot<K, V> current = snapshot;
+    if (current != null && isSnapshotDone(current, now)) {
+      releaseSnapshot(current);
+    }
+    for (CacheSegment<K, V> segment : segments) {
+      if (segment.tryLock()) {
+        try {
+          segment.maintenance(now);
+        } finally {
+          segment.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * <p>读取未过期的值, 需要刷新时用 {@code refreshLoader} 触发异步刷新</p>
+   */
+  private V getIfPresent(Object key, CacheLoader<? super K, ? extends V> refreshLoader) {
+    CacheEntry<K, V> entry = map.get(key);
+    if (entry == null) {
+      V value = snapshot == null ? null : loadFromSnapshot(key);
+      if (value == null) {
+        stats.recordMiss();
+      } else {
+        stats.recordHit();
+      }
+      return value;
+    }
+    long now = clock.millis();
+    V value = entry.getValue();
+    if (value == null || entry.isExpired(now)) {
+      stats.recordMiss();
+      return null;
+    }
+    stats.recordHit();
+    segmentFor(key).recordRead(entry);
+    if (refreshLoader != null && refreshAfterWriteMillis > 0
+        && now - entry.writeTime >= refreshAfterWriteMillis) {
+      refresh(entry, refreshLoader);
+    }
+    return value;
+  }
+
+  /**
+   * <p>加载前检查否定缓存, 命中时不再调用加载器</p>
+   */
+  private boolean isMarkedAbsent(Object key) {
+    return absent != null && absent.containsKey(key);
+  }
+
+  /**
+   * <p>键被写入或移除后清除它的不存在记录, 没有记录时不加锁</p>
+   */
+  private void clearAbsent(Object key) {
+    if (absent != null && absent.map.containsKey(key)) {
+      absent.remove(key);
+    }
+  }
+
+  /**
+   * <p>读取未过期的值, 不记录统计和访问顺序</p>
+   */
+  private V peek(Object key) {
+    CacheEntry<K, V> entry = map.get(key);
+    return entry == null || entry.isExpired(clock.millis()) ? null : entry.getValue();
+  }
+
+  /**
+   * <p>在分段锁内从快照中取出条目放入缓存, 与写操作互斥, 避免快照中的旧值覆盖新写入的值</p>
+   */
+  @SuppressWarnings("unchecked")
+  private V loadFromSnapshot(Object key) {
+    CacheSnapshot<K, V> current = snapshot;
+    long now = clock.millis();
+    if (current == null || key == null) {
+      return null;
+    }
+    if (isSnapshotDone(current, now)) {
+      releaseSnapshot(current);
+      return null;
+    }
+    if (!current.contains((K) key)) {
+      return null;
+    }
+    CacheSegment<K, V> segment = segmentFor(key);
+    V value;
+    segment.lock();
+    try {
+      CacheEntry<K, V> entry = map.get(key);
+      if (entry != null) {
+        return entry.isExpired(now) ? null : entry.getValue();
+      }
+      entry = current.take((K) key, now);
+      if (entry == null) {
+        return null;
+      }
+      value = entry.getValue();
+      if (valueStrength != ValueReference.Strength.STRONG) {
+        entry = newEntry(entry.key, value, now, entry.ttl());
+      }
+      segment.put(entry);
+    } finally {
+      segment.unlock();
     }
+    evictOverflow(segment);
     return value;
   }
+
+  /**
+   * <p>写入后缓存的总权重仍超过上限时, 依次从其他分段中权重最大的分段淘汰, 直到不再超出</p>
+   * <p>写入的分段 {@code origin} 自己淘汰到只剩新的候选条目时停止, 因此最后才考虑它;
+   * 调用时不能持有任何分段锁
+   */
+  private void evictOverflow(CacheSegment<K, V> origin) {
+    while (totalWeight != null && totalWeight.get() > maximum) {
+      CacheSegment<K, V> target = heaviestSegment(origin);
+      if (target == null) {
+        return;
+      }
+      boolean evicted;
+      target.lock();
+      try {
+        evicted = target.evictOverflow();
+      } finally {
+        target.unlock();
+      }
+      if (!evicted) {
+        // 分段已被其他线程清空, 留给之后的写入处理
+        return;
+      }
+    }
+  }
+
+  private CacheSegment<K, V> heaviestSegment(CacheSegment<K, V> origin) {
+    CacheSegment<K, V> heaviest = null;
+    long heaviestWeight = 0L;
+    for (CacheSegment<K, V> segment : segments) {
+      long weight = segment.weightedSize();
+      if (segment != origin && weight > heaviestWeight) {
+        heaviest = segment;
+        heaviestWeight = weight;
+      }
+    }
+    return heaviest != null || origin == null || origin.weightedSize() == 0L ? heaviest : origin;
+  }
+
+  @SuppressWarnings("unchecked")
+  private CacheEntry<K, V> newEntry(K key, V value, long now, long ttl) {
+    ValueReference<K, V> reference = valueStrength.reference(key, value, valueQueue);
+    return reference == null ? new CacheEntry<>(key, value, now, ttl) : new CacheEntry<>(key, reference, now, ttl);
+  }
+
+  /**
+   * <p>移除值已被回收的条目, 每次最多处理 {@code limit} 个, 把清理的开销分摊到写操作和定期清理上</p>
+   */
+  @SuppressWarnings("unchecked")
+  private void drainValueQueue(int limit) {
+    if (valueQueue == null) {
+      return;
+    }
+    Reference<? extends V> polled;
+    for (int i = 0; i < limit && (polled = valueQueue.poll()) != null; i++) {
+      ValueReference<K, V> reference = (ValueReference<K, V>) polled;
+      CacheSegment<K, V> segment = segmentFor(reference.key());
+      segment.lock();
+      try {
+        segment.collect(reference);
+      } finally {
+        segment.unlock();
+      }
+    }
+  }
+
+  private boolean isSnapshotDone(CacheSnapshot<K, V> current, long now) {
+    return now >= snapshotDeadline || current.isExhausted(now);
+  }
+
+  /**
+   * <p>预热结束或缓存关闭时不再使用快照, 并解除快照的内存映射</p>
+   */
+  private void releaseSnapshot(CacheSnapshot<K, V> current) {
+    if (current != null) {
+      snapshot = null;
+      current.close();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void invalidateSnapshot(Object key) {
+    CacheSnapshot<K, V> current = snapshot;
+    if (current != null) {
+      current.invalidate((K) key);
+    }
+  }
+
+  /**
+   * <p>在线程池中重新加载条目, 加载完成时只有条目未被修改过才会替换, 加载失败时保留旧值</p>
+   */
+  private void refresh(CacheEntry<K, V> entry, CacheLoader<? super K, ? extends V> loader) {
+    if (!entry.casRefreshing()) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        try {
+          V value = loader.load(entry.key);
+          stats.recordLoadSuccess(System.nanoTime() - start);
+          if (closed) {
+            return;
+          }
+          CacheEntry<K, V> refreshed = value == null ? null
+              : newEntry(entry.key, value, clock.millis(), entry.ttl());
+          CacheSegment<K, V> segment = segmentFor(entry.key);
+          segment.lock();
+          boolean replaced;
+          try {
+            replaced = segment.replace(entry, refreshed);
+          } finally {
+            segment.unlock();
+          }
+          evictOverflow(segment);
+          if (replaced && refreshed == null && absent != null) {
+            absent.put(entry.key, Boolean.TRUE);
+          }
+        } catch (Throwable e) {
+          stats.recordLoadFailure(System.nanoTime() - start);
+          entry.clearRefreshing();
+          log.warn("刷新缓存失败, key: {}", entry.key, e);
+        }
+      });
+    } catch (RuntimeException e) {
+      entry.clearRefreshing();
+      log.warn("提交刷新任务失败, key: {}", entry.key, e);
+    }
+  }
+
+  /**
+   * <p>执行加载并完成 {@code future}, 加载到的值先放入缓存再结束加载状态, 保证之后的读取能命中</p>
+   */
+  private void load(K key, CacheLoader<? super K, ? extends V> loader, CompletableFuture<V> future) {
+    long start = System.nanoTime();
+    try {
+      V value = peek(key);
+      if (value == null) {
+        value = loader.load(key);
+        stats.recordLoadSuccess(System.nanoTime() - start);
+        if (value != null) {
+          put(key, value);
+        } else if (absent != null) {
+          absent.put(key, Boolean.TRUE);
+        }
+      }
+      future.complete(value);
+    } catch (Throwable e) {
+      stats.recordLoadFailure(System.nanoTime() - start);
+      future.completeExceptionally(new CacheLoadException("加载缓存失败, key: " + key, e));
+    } finally {
+      loading.remove(key, future);
+    }
+  }
+
+  private void loadAll(Map<K, CompletableFuture<V>> owned,
+      CacheLoader<? super K, ? extends V> loader) {
+    long start = System.nanoTime();
+    try {
+      Map<? super K, ? extends V> loaded = loader.loadAll(owned.keySet());
+      stats.recordLoadSuccess(System.nanoTime() - start);
+      Map<K, V> present = new LinkedHashMap<>(owned.size() * 2);
+      for (K key : owned.keySet()) {
+        V value = loaded == null ? null : loaded.get(key);
+        if (value != null) {
+          present.put(key, value);
+        }
+      }
+      putAll(present);
+      if (absent != null && present.size() < owned.size()) {
+        Map<K, Boolean> missing = new LinkedHashMap<>((owned.size() - present.size()) * 2);
+        for (K key : owned.keySet()) {
+          if (!present.containsKey(key)) {
+            missing.put(key, Boolean.TRUE);
+          }
+        }
+        absent.putAll(missing);
+      }
+      for (Entry<K, CompletableFuture<V>> e : owned.entrySet()) {
+        e.getValue().complete(present.get(e.getKey()));
+      }
+    } catch (Throwable e) {
+      stats.recordLoadFailure(System.nanoTime() - start);
+      CacheLoadException ex = new CacheLoadException("批量加载缓存失败, keys: " + owned.keySet(), e);
+      for (CompletableFuture<V> future : owned.values()) {
+        future.completeExceptionally(ex);
+      }
+    } finally {
+      for (Entry<K, CompletableFuture<V>> e : owned.entrySet()) {
+        loading.remove(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  private V join(K key, CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CacheLoadException) {
+        throw (CacheLoadException) cause;
+      }
+      throw new CacheLoadException("加载缓存失败, key: " + key, cause);
+    }
+  }
+
+  /**
+   * <p>记录注册时使用的名称, 关闭时据此注销, 由 {@link CacheRegistry} 调用</p>
+   */
+  void registeredAs(String name) {
+    this.registeredName = name;
+  }
+
+  /**
+   * <p>缓存使用的时钟</p>
+   */
+  Clock clock() {
+    return clock;
+  }
+
+  /**
+   * <p>返回存储中的所有条目, 包括已过期但尚未移除的条目, 供快照等内部功能遍历</p>
+   */
+  Collection<CacheEntry<K, V>> entries() {
+    return map.values();
+  }
+
+  /**
+   * <p>视图迭代器的基类, 直接遍历存储并预先找到下一个未过期且值未被回收的条目</p>
+   * <p>软引用或弱引用模式下迭代器在返回前一直强引用下一个值, 保证返回的值不为 {@code null}
+   */
+  private abstract class ViewIterator<E> implements Iterator<E> {
+
+    private final Iterator<CacheEntry<K, V>> iterator = map.values().iterator();
+    private final long now = clock.millis();
+    private CacheEntry<K, V> next;
+    private V nextValue;
+    private CacheEntry<K, V> last;
+    private V lastValue;
+
+    ViewIterator() {
+      advance();
+    }
+
+    private void advance() {
+      next = null;
+      nextValue = null;
+      while (iterator.hasNext()) {
+        CacheEntry<K, V> entry = iterator.next();
+        V value = entry.getValue();
+        if (value != null && !entry.isExpired(now)) {
+          next = entry;
+          nextValue = value;
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    CacheEntry<K, V> nextEntry() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      lastValue = nextValue;
+      advance();
+      return last;
+    }
+
+    V lastValue() {
+      return lastValue;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      CacheMap.this.remove(last.key, lastValue);
+      last = null;
+      lastValue = null;
+    }
+  }
+
+  private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+
+    @NotNull
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new ViewIterator<Entry<K, V>>() {
+        @Override
+        public Entry<K, V> next() {
+          CacheEntry<K, V> entry = nextEntry();
+          // 值可能随时被回收, 需要返回持有强引用的条目
+          return entry.valueReference() == null ? entry : new SimpleImmutableEntry<>(entry.key, lastValue());
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return CacheMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      V value = e.getKey() == null ? null : peek(e.getKey());
+      return value != null && value.equals(e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      return CacheMap.this.remove(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public void clear() {
+      CacheMap.this.clear();
+    }
+  }
+
+  private final class KeySetView extends AbstractSet<K> {
+
+    @NotNull
+    @Override
+    public Iterator<K> iterator() {
+      return new ViewIterator<K>() {
+        @Override
+        public K next() {
+          return nextEntry().key;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return CacheMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return o != null && CacheMap.this.remove(o) != null;
+    }
+
+    @Override
+    public void clear() {
+      CacheMap.this.clear();
+    }
+  }
+
+  private final class ValuesView extends AbstractCollection<V> {
+
+    @NotNull
+    @Override
+    public Iterator<V> iterator() {
+      return new ViewIterator<V>() {
+        @Override
+        public V next() {
+          nextEntry();
+          return lastValue();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return CacheMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      CacheMap.this.clear();
+    }
+  }
+
+  private CacheSegment<K, V> segmentFor(Object key) {
+    return segments[segmentIndex(key)];
+  }
+
+  private int segmentIndex(Object key) {
+    int h = key.hashCode();
+    h ^= (h >>> 16);
+    return h & segmentMask;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> List<T>[] newGroups() {
+    return new List[segments.length];
+  }
+
+  private <T> List<T> group(List<T>[] groups, Object key) {
+    int index = segmentIndex(key);
+    List<T> group = groups[index];
+    if (group == null) {
+      group = groups[index] = new ArrayList<>();
+    }
+    return group;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
 }
@@ -0,0 +1,251 @@
+package com.github.codinghck.base.util.common.cache;
+
+import com.github.codinghck.base.util.common.base.date.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import org.springframework.util.Assert;
+
+/**
+ * <p>{@link CacheMap} 的构建器</p>
+ * <pre>
+ *   CacheMap&lt;Long, User&gt; cache = CacheMap.&lt;Long, User&gt;newBuilder()
+ *       .expireAfterWrite(60000)
+ *       .maximumSize(10000)
+ *       .build();
+ * </pre>
+ *
+ * @author hck 2026-10-17 12:05
+ */
+@SuppressWarnings("unused")
+public final class CacheMapBuilder<K, V> {
+
+  static final long DEFAULT_EXPIRE_MILLIS = 30000;
+  static final long DEFAULT_WARM_UP_MILLIS = 10 * 60 * 1000;
+  static final long UNSET = -1L;
+
+  long expireAfterWriteMillis = DEFAULT_EXPIRE_MILLIS;
+  long maximumSize = UNSET;
+  long maximumWeight = UNSET;
+  Weigher<? super K, ? super V> weigher;
+  long refreshAfterWriteMillis = UNSET;
+  CacheLoader<? super K, ? extends V> loader;
+  Executor executor = ForkJoinPool.commonPool();
+  CacheSnapshot<K, V> snapshot;
+  long warmUpMillis = DEFAULT_WARM_UP_MILLIS;
+  boolean recordStats;
+  Clock clock = Clock.coarse();
+  ValueReference.Strength valueStrength = ValueReference.Strength.STRONG;
+  RemovalListener<? super K, ? super V> removalListener;
+  long negativeExpireMillis = UNSET;
+  long negativeMaximumSize = UNSET;
+
+  CacheMapBuilder() {}
+
+  /**
+   * <p>设置条目写入后的默认过期时间</p>
+   *
+   * @param millis 过期毫秒数, 默认 30 秒
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> expireAfterWrite(long millis) {
+    Assert.isTrue(millis > 0, "过期时间必须大于 0");
+    this.expireAfterWriteMillis = millis;
+    return this;
+  }
+
+  /**
+   * <p>设置最大条目数, 超过时按 W-TinyLFU 策略淘汰访问频率较低的条目</p>
+   *
+   * @param maximumSize 最大条目数
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> maximumSize(long maximumSize) {
+    Assert.isTrue(maximumSize >= 0, "最大条目数不能小于 0");
+    Assert.state(maximumWeight == UNSET, "已经设置了最大总权重");
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  /**
+   * <p>设置最大总权重, 需要同时设置 {@link #weigher(Weigher)}, 超过时按 W-TinyLFU 策略淘汰条目</p>
+   * <p>条目大小差异很大时, 用占用的字节数作为权重比限制条目数更能控制内存占用
+   *
+   * @param maximumWeight 最大总权重
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> maximumWeight(long maximumWeight) {
+    Assert.isTrue(maximumWeight >= 0, "最大总权重不能小于 0");
+    Assert.state(maximumSize == UNSET, "已经设置了最大条目数");
+    this.maximumWeight = maximumWeight;
+    return this;
+  }
+
+  /**
+   * <p>设置条目权重的计算方式, 写入和替换时计算一次</p>
+   *
+   * @param weigher 权重计算方式
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+    Assert.notNull(weigher, "weigher 不能为 null");
+    this.weigher = weigher;
+    return this;
+  }
+
+  /**
+   * <p>设置写入多久之后需要刷新, 超过该时间的条目被读取时仍返回旧值, 同时在线程池中异步重新加载</p>
+   * <p>应小于过期时间, 否则条目在刷新前就已过期; 需要配合 {@link #loader(CacheLoader)}
+   * 或者 {@link CacheMap#get(Object, CacheLoader)} 使用
+   *
+   * @param millis 刷新毫秒数
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> refreshAfterWrite(long millis) {
+    Assert.isTrue(millis > 0, "刷新时间必须大于 0");
+    this.refreshAfterWriteMillis = millis;
+    return this;
+  }
+
+  /**
+   * <p>设置默认的加载器, 用于 {@link CacheMap#get(Object)} 触发的刷新</p>
+   *
+   * @param loader 加载器
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> loader(CacheLoader<? super K, ? extends V> loader) {
+    Assert.notNull(loader, "loader 不能为 null");
+    this.loader = loader;
+    return this;
+  }
+
+  /**
+   * <p>设置执行异步加载, 刷新和移除回调的线程池, 默认使用 {@link ForkJoinPool#commonPool()},
+   * 它的线程都是守护线程, 不会阻止 JVM 退出</p>
+   * <p>公共线程池的线程数约等于 CPU 核数, 加载器会长时间阻塞 (远程调用, 数据库查询等) 时
+   * 应设置单独的线程池, 避免占满公共线程池影响其他任务
+   *
+   * @param executor 线程池
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> executor(Executor executor) {
+    Assert.notNull(executor, "executor 不能为 null");
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * <p>使用快照预热缓存, 未命中时先在快照中查找, 预热时间为 10 分钟, 见 {@link #warmFrom(CacheSnapshot, long)}</p>
+   *
+   * @param snapshot 通过 {@link CacheSnapshot#open} 打开的快照
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> warmFrom(CacheSnapshot<K, V> snapshot) {
+    return warmFrom(snapshot, DEFAULT_WARM_UP_MILLIS);
+  }
+
+  /**
+   * <p>使用快照预热缓存, 未命中时先在快照中查找, 见 {@link CacheSnapshot}</p>
+   * <p>缓存创建 {@code warmUpMillis} 毫秒后, 或者快照中的条目都被取出或都已过期时, 缓存不再使用快照并关闭它,
+   * 之后未命中不再有查找快照的开销
+   *
+   * @param snapshot 通过 {@link CacheSnapshot#open} 打开的快照, 由缓存负责关闭
+   * @param warmUpMillis 预热毫秒数
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> warmFrom(CacheSnapshot<K, V> snapshot, long warmUpMillis) {
+    Assert.notNull(snapshot, "snapshot 不能为 null");
+    Assert.isTrue(warmUpMillis > 0, "预热时间必须大于 0");
+    this.snapshot = snapshot;
+    this.warmUpMillis = warmUpMillis;
+    return this;
+  }
+
+  /**
+   * <p>开启统计, 之后可以通过 {@link CacheMap#stats()} 获取命中率, 加载耗时等数据</p>
+   *
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> recordStats() {
+    this.recordStats = true;
+    return this;
+  }
+
+  /**
+   * <p>开启否定缓存: 加载器返回 {@code null} 的键被记录为不存在, 在 {@code expireMillis} 毫秒内
+   * 再次读取时直接返回 {@code null}, 不再调用加载器</p>
+   * <p>不存在的键单独存放, 使用自己的过期时间和最大条目数, 大量不存在的键不会挤占正常条目;
+   * 写入, 移除或失效一个键时同时清除它的不存在记录, 见 {@link CacheMap#markAbsent(Object)}
+   *
+   * @param expireMillis 不存在记录的过期毫秒数, 通常远小于正常条目的过期时间
+   * @param maximumSize 最多记录的不存在的键数
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> negativeCaching(long expireMillis, long maximumSize) {
+    Assert.isTrue(expireMillis > 0, "过期时间必须大于 0");
+    Assert.isTrue(maximumSize >= 0, "最大条目数不能小于 0");
+    this.negativeExpireMillis = expireMillis;
+    this.negativeMaximumSize = maximumSize;
+    return this;
+  }
+
+  /**
+   * <p>设置条目被移除 (过期, 淘汰, 替换, 主动移除等) 时的回调, 回调在 {@link #executor(Executor)}
+   * 设置的线程池中批量执行, 不会阻塞写入和清理</p>
+   *
+   * @param removalListener 回调
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> removalListener(RemovalListener<? super K, ? super V> removalListener) {
+    Assert.notNull(removalListener, "removalListener 不能为 null");
+    this.removalListener = removalListener;
+    return this;
+  }
+
+  /**
+   * <p>用软引用持有值, 内存不足时垃圾回收器可以在条目过期前回收这些值, 被回收的条目会从缓存中移除</p>
+   * <p>软引用的回收由垃圾回收器决定, 会增加 GC 的负担; 对内存占用有明确上限时优先使用
+   * {@link #maximumSize(long)} 或 {@link #maximumWeight(long)}
+   *
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> softValues() {
+    Assert.state(valueStrength == ValueReference.Strength.STRONG, "已经设置了值的引用方式");
+    this.valueStrength = ValueReference.Strength.SOFT;
+    return this;
+  }
+
+  /**
+   * <p>用弱引用持有值, 值在其他地方不再被强引用时即可被回收, 被回收的条目会从缓存中移除</p>
+   *
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> weakValues() {
+    Assert.state(valueStrength == ValueReference.Strength.STRONG, "已经设置了值的引用方式");
+    this.valueStrength = ValueReference.Strength.WEAK;
+    return this;
+  }
+
+  /**
+   * <p>设置读取当前时间的时钟, 默认使用 {@link Clock#coarse()}, 写入和过期检查都不再直接读取系统时间;
+   * 测试时可以使用 {@link com.github.codinghck.base.util.common.base.date.ManualClock} 并手动调用
+   * {@link CacheMap#cleanUp()}</p>
+   *
+   * @param clock 时钟
+   * @return 当前构建器
+   */
+  public CacheMapBuilder<K, V> clock(Clock clock) {
+    Assert.notNull(clock, "clock 不能为 null");
+    this.clock = clock;
+    return this;
+  }
+
+  /**
+   * <p>创建缓存实例</p>
+   *
+   * @return 缓存实例
+   */
+  public CacheMap<K, V> build() {
+    Assert.state((maximumWeight == UNSET) == (weigher == null), "maximumWeight 和 weigher 需要同时设置");
+    return new CacheMap<>(this);
+  }
+}
@@ -0,0 +1,97 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.util.Assert;
+
+/**
+ * <p>按名称管理 {@link CacheMap} 实例, 每个缓存可以有各自的配置, 所有缓存共用一个清理线程</p>
+ * <pre>
+ *   CacheMap&lt;Long, User&gt; users = CacheRegistry.getOrCreate("users",
+ *       () -&gt; CacheMap.&lt;Long, User&gt;newBuilder().expireAfterWrite(60000).maximumSize(10000));
+ * </pre>
+ *
+ * @author hck 2026-10-17 17:45
+ */
+@SuppressWarnings("unused")
+public final class CacheRegistry {
+
+  private static final ConcurrentHashMap<String, CacheMap<?, ?>> CACHES = new ConcurrentHashMap<>();
+
+  private CacheRegistry() {}
+
+  /**
+   * <p>获取指定名称的缓存, 不存在时用 {@code builder} 提供的配置创建并注册</p>
+   *
+   * @param name 缓存名称
+   * @param builder 提供构建器, 只在缓存不存在时调用
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 缓存实例
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> CacheMap<K, V> getOrCreate(String name, Supplier<CacheMapBuilder<K, V>> builder) {
+    Assert.hasText(name, "name 不能为空");
+    Assert.notNull(builder, "builder 不能为 null");
+    return (CacheMap<K, V>) CACHES.computeIfAbsent(name, n -> {
+      CacheMap<K, V> cache = builder.get().build();
+      cache.registeredAs(n);
+      return cache;
+    });
+  }
+
+  /**
+   * <p>获取指定名称的缓存</p>
+   *
+   * @param name 缓存名称
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 缓存实例, 不存在时返回 {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> CacheMap<K, V> get(String name) {
+    return (CacheMap<K, V>) CACHES.get(name);
+  }
+
+  /**
+   * <p>获取所有已注册的缓存名称</p>
+   *
+   * @return 只读的名称集合
+   */
+  public static Set<String> names() {
+    return Collections.unmodifiableSet(CACHES.keySet());
+  }
+
+  /**
+   * <p>关闭并注销指定名称的缓存</p>
+   *
+   * @param name 缓存名称
+   * @return 缓存存在时返回 {@code true}
+   */
+  public static boolean close(String name) {
+    CacheMap<?, ?> cache = CACHES.get(name);
+    if (cache == null) {
+      return false;
+    }
+    cache.close();
+    return true;
+  }
+
+  /**
+   * <p>关闭并注销所有缓存</p>
+   */
+  public static void closeAll() {
+    for (CacheMap<?, ?> cache : CACHES.values()) {
+      cache.close();
+    }
+  }
+
+  /**
+   * <p>缓存关闭时注销, 由 {@link CacheMap#close()} 调用</p>
+   */
+  static void unregister(String name, CacheMap<?, ?> cache) {
+    CACHES.remove(name, cache);
+  }
+}
@@ -0,0 +1,72 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>所有 {@link CacheMap}, {@link LongCacheMap} 和 {@link OffHeapCacheMap} 共用的清理调度器, 只有一个守护线程, 不会阻止 JVM 退出</p>
+ * <p>清理任务只持有缓存的弱引用, 没有调用 {@link CacheMap#close()} 的缓存被回收后任务自动取消
+ *
+ * @author hck 2026-10-17 17:40
+ */
+@Slf4j
+final class CacheScheduler {
+
+  private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "cache-cleanup");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private CacheScheduler() {}
+
+  /**
+   * <p>按时间轮的刻度周期性地清理缓存</p>
+   *
+   * @param cache 缓存
+   * @param cleanUp 清理方法
+   * @param <T> 缓存类型
+   * @return 清理任务, 关闭缓存时取消
+   */
+  static <T> ScheduledFuture<?> schedule(T cache, Consumer<? super T> cleanUp) {
+    CleanUpTask<T> task = new CleanUpTask<>(cache, cleanUp);
+    task.future = SCHEDULER.scheduleWithFixedDelay(
+        task, TimerWheel.TICK_MILLIS, TimerWheel.TICK_MILLIS, TimeUnit.MILLISECONDS);
+    return task.future;
+  }
+
+  private static final class CleanUpTask<T> implements Runnable {
+
+    private final WeakReference<T> cacheRef;
+    private final Consumer<? super T> cleanUp;
+    private volatile ScheduledFuture<?> future;
+
+    CleanUpTask(T cache, Consumer<? super T> cleanUp) {
+      this.cacheRef = new WeakReference<>(cache);
+      this.cleanUp = cleanUp;
+    }
+
+    @Override
+    public void run() {
+      T cache = cacheRef.get();
+      if (cache == null) {
+        ScheduledFuture<?> current = future;
+        if (current != null) {
+          current.cancel(false);
+        }
+        return;
+      }
+      try {
+        cleanUp.accept(cache);
+      } catch (Throwable e) {
+        // 抛出异常会让周期任务停止执行
+        log.warn("清理缓存失败", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,407 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link CacheMap} 的一个分段, 键按哈希值分布到各个分段上</p>
+ * <p>所有写操作都在持有分段锁时进行, 分段锁同时保护分段内的时间轮和淘汰策略的状态;
+ * 读操作不加锁, 只把访问记录放入 {@link ReadBuffer}, 由拿到锁的线程批量回放
+ * <p>设置了最大容量时使用 W-TinyLFU 淘汰策略: 新条目先进入容量约为 1% 的窗口 LRU,
+ * 被挤出窗口后进入主区的试用段, 再次被访问时晋升到保护段 (占主区的 80%);
+ * 需要淘汰时比较候选条目和试用段表头条目的访问频率, 只有候选条目更常被访问时才允许它进入主区
+ * <p>各区域的容量按条目权重累计, 只限制条目数时每个条目的权重为 1
+ * <p>容量上限针对整个缓存: 各分段共用一个总权重计数, 只有总权重超过上限时才淘汰. 分段按自己的策略淘汰,
+ * 只剩下刚进入主区的候选条目时停止, 剩余的超出部分由 {@link CacheMap} 从其他分段中淘汰,
+ * 因此单个条目的权重可以超过分段的平均份额; 窗口和保护段的容量按分段的平均份额计算
+ *
+ * @author hck 2026-10-17 11:40
+ */
+final class CacheSegment<K, V> extends ReentrantLock {
+
+  private static final long serialVersionUID = -3029283746561023518L;
+
+  private static final double WINDOW_PERCENT = 0.01d;
+  private static final double PROTECTED_PERCENT = 0.8d;
+  private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+  private static final long MAX_WEIGHTED_SKETCH_SIZE = 1L << 16;
+
+  private final Map<K, CacheEntry<K, V>> map;
+  private final TimerWheel<K, V> timerWheel;
+  private final StatsCounter stats;
+  private final Weigher<? super K, ? super V> weigher;
+  private final RemovalNotifier<K, V> notifier;
+
+  private final boolean bounded;
+  private final AtomicLong totalWeight;
+  private final long cacheMaximum;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final FrequencySketch sketch;
+  private final ReadBuffer<K, V> readBuffer;
+  private final AccessOrderDeque<K, V> windowDeque;
+  private final AccessOrderDeque<K, V> probationDeque;
+  private final AccessOrderDeque<K, V> protectedDeque;
+  private long windowWeight;
+  private long protectedWeight;
+  private volatile long weightedSize;
+
+  /**
+   * @param map 缓存共用的存储
+   * @param now 当前时间毫秒数
+   * @param share 分段的平均容量份额, 用于计算窗口和保护段的容量, 小于 0 表示不限制
+   * @param totalWeight 所有分段共用的总权重, 不限制容量时为 {@code null}
+   * @param cacheMaximum 整个缓存的最大总权重
+   * @param weigher 条目权重的计算方式, 为 {@code null} 时每个条目的权重为 1
+   * @param stats 统计计数器
+   * @param notifier 移除通知, 没有设置监听器时为 {@code null}
+   */
+  CacheSegment(Map<K, CacheEntry<K, V>> map, long now, long share, AtomicLong totalWeight, long cacheMaximum,
+      Weigher<? super K, ? super V> weigher, StatsCounter stats, RemovalNotifier<K, V> notifier) {
+    this.map = map;
+    this.stats = stats;
+    this.notifier = notifier;
+    this.weigher = weigher;
+    this.timerWheel = new TimerWheel<>(now, this::expireEntry);
+    this.bounded = totalWeight != null;
+    this.totalWeight = totalWeight;
+    this.cacheMaximum = cacheMaximum;
+    this.windowMaximum = bounded ? Math.max(1L, (long) (share * WINDOW_PERCENT)) : 0L;
+    this.protectedMaximum = bounded ? (long) ((share - windowMaximum) * PROTECTED_PERCENT) : 0L;
+    // 按权重限制时最大值通常是字节数, 不能直接作为条目数量来分配计数器
+    this.sketch = !bounded ? null
+        : new FrequencySketch(weigher == null ? share : Math.min(share, MAX_WEIGHTED_SKETCH_SIZE));
+    this.readBuffer = bounded ? new ReadBuffer<>() : null;
+    this.windowDeque = bounded ? new AccessOrderDeque<>() : null;
+    this.probationDeque = bounded ? new AccessOrderDeque<>() : null;
+    this.protectedDeque = bounded ? new AccessOrderDeque<>() : null;
+  }
+
+  /**
+   * <p>写入条目, 调用方需要持有分段锁</p>
+   *
+   * @param entry 新条目
+   * @return 被替换的旧条目, 没有时返回 {@code null}
+   */
+  CacheEntry<K, V> put(CacheEntry<K, V> entry) {
+    if (bounded) {
+      entry.weight = weigh(entry);
+    }
+    CacheEntry<K, V> old = map.put(entry.key, entry);
+    if (old != null) {
+      timerWheel.deschedule(old);
+      onRemoval(old, RemovalCause.REPLACED);
+    }
+    timerWheel.schedule(entry);
+    if (bounded) {
+      drainReadBuffer();
+      sketch.increment(entry.key);
+      if (old == null) {
+        entry.queue = CacheEntry.WINDOW;
+        windowDeque.addLast(entry);
+        windowWeight += entry.weight;
+      } else {
+        entry.queue = old.queue;
+        accessDeque(old).replace(old, entry);
+        long delta = (long) entry.weight - old.weight;
+        if (entry.queue == CacheEntry.WINDOW) {
+          windowWeight += delta;
+        } else if (entry.queue == CacheEntry.PROTECTED) {
+          protectedWeight += delta;
+        }
+        addWeight(-old.weight);
+      }
+      addWeight(entry.weight);
+      evictEntries();
+    }
+    return old;
+  }
+
+  /**
+   * <p>移除键对应的条目, 调用方需要持有分段锁</p>
+   *
+   * @param key 键
+   * @return 被移除的条目, 没有时返回 {@code null}
+   */
+  CacheEntry<K, V> remove(Object key) {
+    CacheEntry<K, V> old = map.remove(key);
+    if (old != null) {
+      unlink(old);
+      onRemoval(old, RemovalCause.EXPLICIT);
+    }
+    return old;
+  }
+
+  /**
+   * <p>只有当前条目仍是 {@code old} 时才替换为 {@code entry}, 调用方需要持有分段锁</p>
+   *
+   * @param old 期望的当前条目
+   * @param entry 新条目, 为 {@code null} 时移除 {@code old}
+   * @return 是否替换成功
+   */
+  boolean replace(CacheEntry<K, V> old, CacheEntry<K, V> entry) {
+    if (map.get(old.key) != old) {
+      return false;
+    }
+    if (entry == null) {
+      evictEntry(old, RemovalCause.EXPLICIT);
+    } else {
+      put(entry);
+    }
+    return true;
+  }
+
+  /**
+   * <p>值被垃圾回收后移除对应的条目, 条目已被替换或移除时忽略, 调用方需要持有分段锁</p>
+   *
+   * @param reference 进入引用队列的值引用
+   */
+  void collect(ValueReference<K, V> reference) {
+    CacheEntry<K, V> entry = map.get(reference.key());
+    if (entry != null && entry.valueReference() == reference) {
+      evictEntry(entry, RemovalCause.COLLECTED);
+    }
+  }
+
+  /**
+   * <p>记录一次读操作, 不需要持有分段锁, 也不会阻塞</p>
+   *
+   * @param entry 被读取的条目
+   */
+  void recordRead(CacheEntry<K, V> entry) {
+    if (bounded && readBuffer.offer(entry) && tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        unlock();
+      }
+    }
+  }
+
+  /**
+   * <p>回放读记录并推进时间轮, 调用方需要持有分段锁</p>
+   *
+   * @param now 当前时间毫秒数
+   */
+  void maintenance(long now) {
+    if (bounded) {
+      drainReadBuffer();
+    }
+    timerWheel.advance(now);
+  }
+
+  /**
+   * <p>重置分段内的时间轮和淘汰策略, 调用方需要持有所有分段的锁并负责清空存储</p>
+   */
+  void clear() {
+    timerWheel.clear();
+    if (bounded) {
+      drainReadBuffer();
+      windowDeque.clear();
+      probationDeque.clear();
+      protectedDeque.clear();
+      windowWeight = 0L;
+      protectedWeight = 0L;
+      addWeight(-weightedSize);
+    }
+  }
+
+  /**
+   * <p>整个缓存的总权重超过上限时, 从本分段中淘汰条目, 用于分担其他分段写入造成的超出;
+   * 调用方需要持有分段锁</p>
+   *
+   * @return 是否淘汰了条目
+   */
+  boolean evictOverflow() {
+    if (!bounded) {
+      return false;
+    }
+    drainReadBuffer();
+    boolean evicted = false;
+    while (isOverflow()) {
+      CacheEntry<K, V> victim = probationDeque.peekFirst();
+      if (victim == null) {
+        victim = protectedDeque.peekFirst();
+      }
+      if (victim == null) {
+        victim = windowDeque.peekFirst();
+      }
+      if (victim == null) {
+        break;
+      }
+      evictEntry(victim, RemovalCause.SIZE);
+      evicted = true;
+    }
+    return evicted;
+  }
+
+  /**
+   * <p>分段中条目的总权重, 不加锁读取, 只用于选择分担淘汰的分段</p>
+   *
+   * @return 总权重
+   */
+  long weightedSize() {
+    return weightedSize;
+  }
+
+  /**
+   * <p>回放一条读记录, 由 {@link ReadBuffer} 在持有分段锁时调用</p>
+   *
+   * @param entry 被读取的条目
+   */
+  void onAccess(CacheEntry<K, V> entry) {
+    sketch.increment(entry.key);
+    if (entry.nextInAccess == null) {
+      // 条目在记录之后已经被移除或替换
+      return;
+    }
+    if (entry.queue == CacheEntry.WINDOW) {
+      windowDeque.moveToBack(entry);
+    } else if (entry.queue == CacheEntry.PROBATION) {
+      probationDeque.remove(entry);
+      entry.queue = CacheEntry.PROTECTED;
+      protectedDeque.addLast(entry);
+      protectedWeight += entry.weight;
+      demoteFromProtected();
+    } else {
+      protectedDeque.moveToBack(entry);
+    }
+  }
+
+  private void drainReadBuffer() {
+    readBuffer.drainTo(this);
+  }
+
+  /**
+   * <p>时间轮回调, 移除到期的条目</p>
+   */
+  private boolean expireEntry(CacheEntry<K, V> entry) {
+    evictEntry(entry, RemovalCause.EXPIRED);
+    return true;
+  }
+
+  private void evictEntry(CacheEntry<K, V> entry, RemovalCause cause) {
+    if (map.remove(entry.key, entry)) {
+      onRemoval(entry, cause);
+    }
+    unlink(entry);
+  }
+
+  private void onRemoval(CacheEntry<K, V> entry, RemovalCause cause) {
+    stats.recordRemoval(cause);
+    if (notifier != null) {
+      notifier.offer(entry.key, entry.getValue(), cause);
+    }
+  }
+
+  private void unlink(CacheEntry<K, V> entry) {
+    timerWheel.deschedule(entry);
+    if (bounded && entry.nextInAccess != null) {
+      accessDeque(entry).remove(entry);
+      if (entry.queue == CacheEntry.WINDOW) {
+        windowWeight -= entry.weight;
+      } else if (entry.queue == CacheEntry.PROTECTED) {
+        protectedWeight -= entry.weight;
+      }
+      addWeight(-entry.weight);
+    }
+  }
+
+  private void addWeight(long delta) {
+    if (delta != 0L) {
+      weightedSize += delta;
+      totalWeight.addAndGet(delta);
+    }
+  }
+
+  private boolean isOverflow() {
+    return totalWeight.get() > cacheMaximum;
+  }
+
+  private AccessOrderDeque<K, V> accessDeque(CacheEntry<K, V> entry) {
+    switch (entry.queue) {
+      case CacheEntry.WINDOW:
+        return windowDeque;
+      case CacheEntry.PROBATION:
+        return probationDeque;
+      default:
+        return protectedDeque;
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedWeight > protectedMaximum) {
+      CacheEntry<K, V> demoted = protectedDeque.peekFirst();
+      if (demoted == null) {
+        break;
+      }
+      protectedDeque.remove(demoted);
+      demoted.queue = CacheEntry.PROBATION;
+      probationDeque.addLast(demoted);
+      protectedWeight -= demoted.weight;
+    }
+  }
+
+  /**
+   * <p>把窗口中溢出的条目移入试用段作为候选, 然后淘汰直到缓存的总权重不超过最大值</p>
+   * <p>分段的主区中除了候选条目已经没有可以淘汰的条目时停止, 由 {@link CacheMap} 从其他分段中淘汰;
+   * 只有候选条目本身超过整个缓存的上限时才直接淘汰它
+   */
+  private void evictEntries() {
+    while (windowWeight > windowMaximum) {
+      CacheEntry<K, V> first = windowDeque.peekFirst();
+      windowDeque.remove(first);
+      first.queue = CacheEntry.PROBATION;
+      probationDeque.addLast(first);
+      windowWeight -= first.weight;
+    }
+    demoteFromProtected();
+    while (isOverflow()) {
+      CacheEntry<K, V> candidate = probationDeque.peekLast();
+      CacheEntry<K, V> victim = probationDeque.peekFirst();
+      if (victim == candidate) {
+        victim = protectedDeque.peekFirst();
+      }
+      if (victim == null) {
+        // 主区只剩候选条目, 窗口里是刚写入的条目, 超出部分改为从其他分段淘汰
+        if (candidate != null && candidate.weight > cacheMaximum) {
+          evictEntry(candidate, RemovalCause.SIZE);
+        }
+        break;
+      }
+      if (candidate == null || admit(candidate.key, victim.key)) {
+        evictEntry(victim, RemovalCause.SIZE);
+      } else {
+        evictEntry(candidate, RemovalCause.SIZE);
+      }
+    }
+  }
+
+  private int weigh(CacheEntry<K, V> entry) {
+    if (weigher == null) {
+      return 1;
+    }
+    int weight = weigher.weigh(entry.key, entry.getValue());
+    if (weight < 0) {
+      throw new IllegalArgumentException("权重不能小于 0, key: " + entry.key);
+    }
+    return weight;
+  }
+
+  /**
+   * <p>判断候选条目是否可以替换掉受害条目留在缓存中</p>
+   * <p>频率较高的候选条目偶尔随机放行, 防止攻击者通过伪造哈希冲突把热点条目挤在主区之外
+   */
+  private boolean admit(K candidateKey, K victimKey) {
+    int victimFreq = sketch.frequency(victimKey);
+    int candidateFreq = sketch.frequency(candidateKey);
+    if (candidateFreq > victimFreq) {
+      return true;
+    } else if (candidateFreq < ADMIT_HASHDOS_THRESHOLD) {
+      return false;
+    }
+    return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+  }
+}
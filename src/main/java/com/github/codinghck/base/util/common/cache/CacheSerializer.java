@@ -0,0 +1,25 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>缓存对象和字节数组之间的转换, 用于堆外存储等需要把对象放到 JVM 堆之外的场景</p>
+ *
+ * @author hck 2026-10-17 14:10
+ */
+public interface CacheSerializer<T> {
+
+  /**
+   * <p>把对象序列化为字节数组</p>
+   *
+   * @param value 对象, 不为 {@code null}
+   * @return 字节数组
+   */
+  byte[] serialize(T value);
+
+  /**
+   * <p>把字节数组反序列化为对象</p>
+   *
+   * @param bytes 由 {@link #serialize(Object)} 得到的字节数组
+   * @return 对象
+   */
+  T deserialize(byte[] bytes);
+}
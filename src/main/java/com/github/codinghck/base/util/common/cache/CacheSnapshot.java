@@ -0,0 +1,480 @@
+package com.github.codinghck.base.util.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>{@link CacheMap} 的持久化快照, 用于服务重启后的缓存预热</p>
+ * <p>{@link #write} 把缓存中未过期的条目连同过期时间写入文件, 文件末尾是一张按键哈希的开放寻址索引表.
+ * {@link #open} 通过内存映射打开快照文件, 不读取任何条目; 把快照交给
+ * {@link CacheMapBuilder#warmFrom(CacheSnapshot)} 后, 缓存未命中时才按索引在快照中查找该键,
+ * 因此启动耗时与快照大小无关. 每个条目只会被加载一次, 缓存中写入或删除过的键也不会再从快照中读取
+ * <p>索引按键的 {@code hashCode()} 建立, 查找时不需要序列化键, 只有哈希值相同时才反序列化快照中的键比较;
+ * 因此键的 {@code hashCode()} 需要在不同的 JVM 进程中保持一致 ({@code String}, 包装类型等),
+ * 依赖对象地址的 {@code hashCode()} (如枚举) 只会总是未命中
+ * <p>条目都被取出, 都已过期或者超过预热时间 ({@link CacheMapBuilder#warmFrom(CacheSnapshot, long)}) 后,
+ * 缓存不再使用快照并调用 {@link #close()} 解除内存映射. 读取映射内存前后通过 {@link DirectBufferGuard} 登记,
+ * 只修改当前线程对应的计数, 未命中和写入时的查找不会争用同一个锁状态
+ * <p>打开时校验文件头和索引表的位置, 读取条目时校验条目长度; 文件被截断或损坏时记录警告并返回空快照,
+ * 缓存按冷启动处理, 不会因为快照文件抛出异常
+ * <p>条目的过期时间以绝对时间保存, 重启后剩余的存活时间保持不变. 单个快照文件不能超过 2GB
+ * <pre>
+ * 文件格式:
+ *   header: magic(4) version(4) savedAt(8) maxExpireAt(8) recordCount(4) slotCount(4) tableOffset(8)
+ *   record: keyLength(4) valueLength(4) expireAt(8) key value
+ *   slot:   keyHash(4) recordOffset(8), recordOffset 为 0 表示空槽
+ * </pre>
+ *
+ * @author hck 2026-10-17 15:05
+ */
+@Slf4j
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class CacheSnapshot<K, V> implements AutoCloseable {
+
+  private static final int MAGIC = 0x43534e50;
+  private static final int VERSION = 2;
+  private static final int HEADER_BYTES = 40;
+  private static final int RECORD_HEADER_BYTES = 16;
+  private static final int SLOT_BYTES = 12;
+  private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+  /**
+   * 无效快照对应的空快照为 {@code null}
+   */
+  private final MappedByteBuffer buffer;
+  private final CacheSerializer<K> keySerializer;
+  private final CacheSerializer<V> valueSerializer;
+  private final long maxExpireAt;
+  private final int slotCount;
+  private final int tableOffset;
+  private final AtomicLongArray consumed;
+  private final AtomicInteger remaining;
+  /**
+   * 读取映射内存前登记, 解除映射前等待进行中的读取结束, 避免访问已释放的内存
+   */
+  private final DirectBufferGuard guard = new DirectBufferGuard();
+
+  /**
+   * @param buffer 已通过 {@link #validate(ByteBuffer)} 校验的映射内存
+   */
+  private CacheSnapshot(MappedByteBuffer buffer, CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer) {
+    this.buffer = buffer;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.maxExpireAt = buffer.getLong(16);
+    this.remaining = new AtomicInteger(buffer.getInt(24));
+    this.slotCount = buffer.getInt(28);
+    this.tableOffset = (int) buffer.getLong(32);
+    this.consumed = new AtomicLongArray(Math.max(1, (slotCount + 63) >>> 6));
+  }
+
+  /**
+   * <p>空快照, 创建时即已关闭</p>
+   */
+  private CacheSnapshot(CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) {
+    this.buffer = null;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.maxExpireAt = 0L;
+    this.remaining = new AtomicInteger();
+    this.slotCount = 0;
+    this.tableOffset = 0;
+    this.consumed = new AtomicLongArray(1);
+    guard.close();
+  }
+
+  /**
+   * <p>通过内存映射打开快照文件, 只读取并校验文件头; 文件被截断, 损坏或版本不兼容时记录警告并返回空快照</p>
+   *
+   * @param file 快照文件
+   * @param keySerializer 键的序列化方式, 需要与写入时一致
+   * @param valueSerializer 值的序列化方式, 需要与写入时一致
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 快照, 文件无效时为不包含任何条目的空快照
+   * @throws IOException 读取文件失败时抛出
+   */
+  public static <K, V> CacheSnapshot<K, V> open(Path file, CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer) throws IOException {
+    Assert.notNull(keySerializer, "keySerializer 不能为 null");
+    Assert.notNull(valueSerializer, "valueSerializer 不能为 null");
+    try (FileChannel channel = FileChannel.open(file)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        log.warn("缓存快照无效, 按冷启动处理, 文件: {}, 原因: 文件超过 2GB", file);
+        return new CacheSnapshot<>(keySerializer, valueSerializer);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      String problem = validate(buffer);
+      if (problem != null) {
+        log.warn("缓存快照无效, 按冷启动处理, 文件: {}, 原因: {}", file, problem);
+        DirectBufferGuard.release(buffer);
+        return new CacheSnapshot<>(keySerializer, valueSerializer);
+      }
+      return new CacheSnapshot<>(buffer, keySerializer, valueSerializer);
+    }
+  }
+
+  /**
+   * <p>校验文件头, 以及索引表是否恰好占据文件末尾</p>
+   *
+   * @return 无效的原因, 有效时返回 {@code null}
+   */
+  private static String validate(ByteBuffer buffer) {
+    int size = buffer.capacity();
+    if (size < HEADER_BYTES) {
+      return "文件长度 " + size + " 小于文件头";
+    }
+    if (buffer.getInt(0) != MAGIC) {
+      return "不是缓存快照文件";
+    }
+    if (buffer.getInt(4) != VERSION) {
+      return "版本 " + buffer.getInt(4) + " 不兼容";
+    }
+    int recordCount = buffer.getInt(24);
+    int slotCount = buffer.getInt(28);
+    long tableOffset = buffer.getLong(32);
+    if (slotCount < 2 || Integer.bitCount(slotCount) != 1 || recordCount < 0 || recordCount > slotCount) {
+      return "索引表大小无效, 条目数: " + recordCount + ", 槽位数: " + slotCount;
+    }
+    if (tableOffset < HEADER_BYTES || tableOffset + (long) slotCount * SLOT_BYTES != size) {
+      return "索引表位置与文件长度不一致, 文件可能被截断";
+    }
+    return null;
+  }
+
+  /**
+   * <p>把缓存中未过期的条目写入快照文件, 先写入临时文件再替换, 写入过程中不会破坏已有的快照</p>
+   *
+   * @param cache 缓存
+   * @param file 快照文件
+   * @param keySerializer 键的序列化方式
+   * @param valueSerializer 值的序列化方式
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 写入的条目数
+   * @throws IOException 写入文件失败时抛出
+   */
+  public static <K, V> int write(CacheMap<K, V> cache, Path file,
+      CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    long now = cache.clock().millis();
+    long maxExpireAt = now;
+    int count = 0;
+    int capacity = 1024;
+    int[] hashes = new int[capacity];
+    long[] offsets = new long[capacity];
+    long offset = HEADER_BYTES;
+    int slotCount;
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          Files.newOutputStream(tmp), WRITE_BUFFER_BYTES))) {
+        out.write(new byte[HEADER_BYTES]);
+        for (CacheEntry<K, V> entry : cache.entries()) {
+          V entryValue = entry.getValue();
+          if (entry.isExpired(now) || entryValue == null) {
+            continue;
+          }
+          byte[] key = keySerializer.serialize(entry.key);
+          byte[] value = valueSerializer.serialize(entryValue);
+          if (count == capacity) {
+            capacity <<= 1;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+          }
+          hashes[count] = hash(entry.key);
+          offsets[count] = offset;
+          count++;
+          out.writeInt(key.length);
+          out.writeInt(value.length);
+          out.writeLong(entry.expireAt);
+          out.write(key);
+          out.write(value);
+          offset += RECORD_HEADER_BYTES + key.length + value.length;
+          maxExpireAt = Math.max(maxExpireAt, entry.expireAt);
+        }
+        slotCount = Math.max(2, Integer.highestOneBit(count * 2 - 1) << 1);
+        if (offset + (long) slotCount * SLOT_BYTES > Integer.MAX_VALUE) {
+          throw new IOException("快照文件超过 2GB");
+        }
+        writeTable(out, hashes, offsets, count, slotCount);
+      }
+      try (RandomAccessFile raf = new RandomAccessFile(tmp.toFile(), "rw")) {
+        raf.writeInt(MAGIC);
+        raf.writeInt(VERSION);
+        raf.writeLong(now);
+        raf.writeLong(maxExpireAt);
+        raf.writeInt(count);
+        raf.writeInt(slotCount);
+        raf.writeLong(offset);
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * <p>注册 JVM 关闭钩子, 关闭时把缓存写入快照文件</p>
+   *
+   * @param cache 缓存
+   * @param file 快照文件
+   * @param keySerializer 键的序列化方式
+   * @param valueSerializer 值的序列化方式
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 注册的钩子线程, 可用于 {@code Runtime.removeShutdownHook}
+   */
+  public static <K, V> Thread writeOnShutdown(CacheMap<K, V> cache, Path file,
+      CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) {
+    Thread hook = new Thread(() -> writeQuietly(cache, file, keySerializer, valueSerializer),
+        "cache-snapshot-shutdown");
+    Runtime.getRuntime().addShutdownHook(hook);
+    return hook;
+  }
+
+  /**
+   * <p>定时把缓存写入快照文件</p>
+   *
+   * @param scheduler 执行写入的调度器
+   * @param periodMillis 写入间隔毫秒数
+   * @param cache 缓存
+   * @param file 快照文件
+   * @param keySerializer 键的序列化方式
+   * @param valueSerializer 值的序列化方式
+   * @param <K> 键类型
+   * @param <V> 值类型
+   * @return 可用于取消定时任务的 {@code ScheduledFuture}
+   */
+  public static <K, V> ScheduledFuture<?> writePeriodically(ScheduledExecutorService scheduler,
+      long periodMillis, CacheMap<K, V> cache, Path file, CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer) {
+    Assert.isTrue(periodMillis > 0, "写入间隔必须大于 0");
+    return scheduler.scheduleWithFixedDelay(
+        () -> writeQuietly(cache, file, keySerializer, valueSerializer),
+        periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * <p>解除内存映射, 之后快照中的所有键都视为不存在; 重复关闭没有影响</p>
+   * <p>映射的内存通常要等到 {@code MappedByteBuffer} 被垃圾回收才会释放, 这里主动释放;
+   * 当前 JVM 不支持时退回到等待垃圾回收
+   */
+  @Override
+  public void close() {
+    if (guard.close()) {
+      DirectBufferGuard.release(buffer);
+    }
+  }
+
+  /**
+   * <p>快照是否已经没有可用的条目: 已关闭, 条目都已被取出或都已过期</p>
+   *
+   * @param now 当前时间毫秒数
+   * @return 没有可用条目时返回 {@code true}
+   */
+  boolean isExhausted(long now) {
+    return guard.isClosed() || remaining.get() <= 0 || now >= maxExpireAt;
+  }
+
+  /**
+   * <p>快照中是否有尚未取出的该键, 不修改任何状态</p>
+   *
+   * @param key 键
+   * @return 存在且未被取出时返回 {@code true}
+   */
+  boolean contains(K key) {
+    int cell = guard.enter();
+    if (cell < 0) {
+      return false;
+    }
+    try {
+      int slot = find(key);
+      return slot >= 0 && (consumed.get(slot >>> 6) & (1L << slot)) == 0L;
+    } finally {
+      guard.exit(cell);
+    }
+  }
+
+  /**
+   * <p>查找键对应的条目并把它标记为已使用, 每个条目只会被取出一次</p>
+   *
+   * @param key 键
+   * @param now 当前时间毫秒数
+   * @return 条目, 不存在, 已过期或已被取出时返回 {@code null}
+   */
+  CacheEntry<K, V> take(K key, long now) {
+    int cell = guard.enter();
+    if (cell < 0) {
+      return null;
+    }
+    try {
+      int slot = find(key);
+      if (slot < 0 || !consume(slot)) {
+        return null;
+      }
+      int offset = (int) buffer.getLong(tableOffset + slot * SLOT_BYTES + 4);
+      long expireAt = buffer.getLong(offset + 8);
+      if (expireAt <= now) {
+        return null;
+      }
+      int keyLength = buffer.getInt(offset);
+      int valueLength = buffer.getInt(offset + 4);
+      V value = valueSerializer.deserialize(bytesAt(offset + RECORD_HEADER_BYTES + keyLength, valueLength));
+      return new CacheEntry<>(key, value, now, expireAt - now);
+    } catch (RuntimeException e) {
+      log.warn("读取缓存快照中的值失败, 视为未命中, key: {}", key, e);
+      return null;
+    } finally {
+      guard.exit(cell);
+    }
+  }
+
+  /**
+   * <p>把键标记为已使用, 缓存中写入或删除该键时调用, 之后不会再从快照中读取该键</p>
+   *
+   * @param key 键
+   */
+  void invalidate(K key) {
+    int cell = guard.enter();
+    if (cell < 0) {
+      return;
+    }
+    try {
+      int slot = find(key);
+      if (slot >= 0) {
+        consume(slot);
+      }
+    } finally {
+      guard.exit(cell);
+    }
+  }
+
+  /**
+   * <p>按键的哈希值在索引中探测, 哈希值相同时才反序列化快照中的键比较; 需要在 {@link DirectBufferGuard#enter()}
+   * 和 {@link DirectBufferGuard#exit(int)} 之间调用. 遇到位置或长度越界的条目时视为索引损坏, 停止查找</p>
+   */
+  private int find(K key) {
+    int hash = hash(key);
+    int mask = slotCount - 1;
+    for (int slot = hash & mask, probes = 0; probes < slotCount; slot = (slot + 1) & mask, probes++) {
+      int position = tableOffset + slot * SLOT_BYTES;
+      long offset = buffer.getLong(position + 4);
+      if (offset == 0L) {
+        return -1;
+      }
+      if (!isValidRecord(offset)) {
+        log.warn("缓存快照中的条目位置或长度越界, 停止查找, offset: {}", offset);
+        return -1;
+      }
+      if (buffer.getInt(position) == hash && keyEquals(key, (int) offset)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * <p>条目头和键值内容都位于文件头与索引表之间</p>
+   */
+  private boolean isValidRecord(long offset) {
+    if (offset < HEADER_BYTES || offset > tableOffset - RECORD_HEADER_BYTES) {
+      return false;
+    }
+    int keyLength = buffer.getInt((int) offset);
+    int valueLength = buffer.getInt((int) offset + 4);
+    return keyLength >= 0 && valueLength >= 0
+        && offset + RECORD_HEADER_BYTES + keyLength + valueLength <= tableOffset;
+  }
+
+  private boolean keyEquals(K key, int offset) {
+    int keyLength = buffer.getInt(offset);
+    try {
+      return Objects.equals(key, keySerializer.deserialize(bytesAt(offset + RECORD_HEADER_BYTES, keyLength)));
+    } catch (RuntimeException e) {
+      log.warn("反序列化缓存快照中的键失败, 视为不相同, offset: {}", offset, e);
+      return false;
+    }
+  }
+
+  private boolean consume(int slot) {
+    int index = slot >>> 6;
+    long mask = 1L << slot;
+    while (true) {
+      long bits = consumed.get(index);
+      if ((bits & mask) != 0L) {
+        return false;
+      }
+      if (consumed.compareAndSet(index, bits, bits | mask)) {
+        remaining.decrementAndGet();
+        return true;
+      }
+    }
+  }
+
+  private byte[] bytesAt(int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(bytes);
+    return bytes;
+  }
+
+  private static void writeTable(DataOutputStream out, int[] hashes, long[] offsets, int count,
+      int slotCount) throws IOException {
+    long[] table = new long[slotCount];
+    int[] tableHashes = new int[slotCount];
+    int mask = slotCount - 1;
+    for (int i = 0; i < count; i++) {
+      int slot = hashes[i] & mask;
+      while (table[slot] != 0L) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = offsets[i];
+      tableHashes[slot] = hashes[i];
+    }
+    for (int i = 0; i < slotCount; i++) {
+      out.writeInt(tableHashes[i]);
+      out.writeLong(table[i]);
+    }
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  private static <K, V> void writeQuietly(CacheMap<K, V> cache, Path file,
+      CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) {
+    try {
+      int count = write(cache, file, keySerializer, valueSerializer);
+      log.info("缓存快照写入完成, 文件: {}, 条目数: {}", file, count);
+    } catch (IOException | RuntimeException e) {
+      log.error("缓存快照写入失败, 文件: {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.github.codinghck.base.util.common.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * <p>缓存统计数据的不可变快照, 通过 {@link CacheMap#stats()} 获取</p>
+ * <p>需要在构建缓存时调用 {@link CacheMapBuilder#recordStats()} 开启统计, 否则各项计数都为 0
+ *
+ * @author hck 2026-10-17 16:20
+ */
+@Getter
+@ToString
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long putCount;
+  private final long loadSuccessCount;
+  private final long loadFailureCount;
+  /**
+   * 加载总耗时纳秒数
+   */
+  private final long totalLoadTime;
+  private final long[] removalCounts;
+  private final long[] loadTimeHistogram;
+
+  CacheStats(long hitCount, long missCount, long putCount, long loadSuccessCount,
+      long loadFailureCount, long totalLoadTime, long[] removalCounts, long[] loadTimeHistogram) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.putCount = putCount;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadTime = totalLoadTime;
+    this.removalCounts = removalCounts;
+    this.loadTimeHistogram = loadTimeHistogram;
+  }
+
+  /**
+   * @return 请求总数, 即命中数与未命中数之和
+   */
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * @return 命中率, 没有请求时为 1.0
+   */
+  public double hitRate() {
+    long requestCount = requestCount();
+    return requestCount == 0 ? 1.0d : (double) hitCount / requestCount;
+  }
+
+  /**
+   * @return 平均每次加载的耗时纳秒数
+   */
+  public double averageLoadPenalty() {
+    long loadCount = loadSuccessCount + loadFailureCount;
+    return loadCount == 0 ? 0.0d : (double) totalLoadTime / loadCount;
+  }
+
+  /**
+   * <p>获取某种原因移除的条目数</p>
+   *
+   * @param cause 移除原因
+   * @return 条目数
+   */
+  public long removalCount(RemovalCause cause) {
+    return removalCounts[cause.ordinal()];
+  }
+
+  /**
+   * @return 自动淘汰 (过期和超过容量) 的条目总数
+   */
+  public long evictionCount() {
+    long count = 0;
+    for (RemovalCause cause : RemovalCause.values()) {
+      if (cause.wasEvicted()) {
+        count += removalCounts[cause.ordinal()];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * <p>加载耗时直方图, 第 i 个元素是耗时小于 {@link #getLoadTimeBucketsMillis()} 第 i 个上限
+   * (且不小于上一个上限) 的加载次数, 最后一个元素是超过最大上限的次数</p>
+   *
+   * @return 直方图的副本
+   */
+  public long[] getLoadTimeHistogram() {
+    return loadTimeHistogram.clone();
+  }
+
+  /**
+   * @return 加载耗时直方图各个桶的上限毫秒数
+   */
+  public long[] getLoadTimeBucketsMillis() {
+    return StatsCounter.LOAD_TIME_BUCKETS_MILLIS.clone();
+  }
+
+  /**
+   * @return 各种原因移除的条目数的副本, 下标为 {@link RemovalCause#ordinal()}
+   */
+  public long[] getRemovalCounts() {
+    return removalCounts.clone();
+  }
+}
@@ -0,0 +1,36 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>通过 JMX 暴露的缓存统计, 由 {@link CacheMap#registerMBean(String)} 注册</p>
+ *
+ * @author hck 2026-10-17 16:45
+ */
+public interface CacheStatsMXBean {
+
+  long getHitCount();
+
+  long getMissCount();
+
+  double getHitRate();
+
+  long getPutCount();
+
+  long getEvictionCount();
+
+  long getExpiredCount();
+
+  long getSizeEvictionCount();
+
+  long getLoadSuccessCount();
+
+  long getLoadFailureCount();
+
+  /**
+   * @return 平均加载耗时毫秒数
+   */
+  double getAverageLoadPenaltyMillis();
+
+  long[] getLoadTimeHistogram();
+
+  long getEstimatedSize();
+}
@@ -0,0 +1,77 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>{@link CacheStatsMXBean} 的实现, 每次读取属性时从缓存获取最新的统计快照</p>
+ *
+ * @author hck 2026-10-17 16:48
+ */
+final class CacheStatsMXBeanImpl implements CacheStatsMXBean {
+
+  private static final double NANOS_PER_MILLI = 1000000.0d;
+
+  private final CacheMap<?, ?> cache;
+
+  CacheStatsMXBeanImpl(CacheMap<?, ?> cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public long getHitCount() {
+    return cache.stats().getHitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return cache.stats().getMissCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  @Override
+  public long getPutCount() {
+    return cache.stats().getPutCount();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  @Override
+  public long getExpiredCount() {
+    return cache.stats().removalCount(RemovalCause.EXPIRED);
+  }
+
+  @Override
+  public long getSizeEvictionCount() {
+    return cache.stats().removalCount(RemovalCause.SIZE);
+  }
+
+  @Override
+  public long getLoadSuccessCount() {
+    return cache.stats().getLoadSuccessCount();
+  }
+
+  @Override
+  public long getLoadFailureCount() {
+    return cache.stats().getLoadFailureCount();
+  }
+
+  @Override
+  public double getAverageLoadPenaltyMillis() {
+    return cache.stats().averageLoadPenalty() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public long[] getLoadTimeHistogram() {
+    return cache.stats().getLoadTimeHistogram();
+  }
+
+  @Override
+  public long getEstimatedSize() {
+    return cache.estimatedSize();
+  }
+}
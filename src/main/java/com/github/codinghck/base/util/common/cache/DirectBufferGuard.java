@@ -0,0 +1,117 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>保护直接内存 (堆外 {@code ByteBuffer} 或内存映射) 的主动释放: 读取方在访问内存前后调用
+ * {@link #enter()} 和 {@link #exit(int)}, 释放方调用 {@link #close()} 等待进行中的读取结束后再调用
+ * {@link #release(ByteBuffer)}. 读取已释放的内存会直接导致 JVM 崩溃, 乐观读的校验无法避免这种情况</p>
+ * <p>进行中的读取数按线程分散到多个相隔一个缓存行以上的槽位, 读取方只修改自己线程对应的槽位,
+ * 不会像所有线程共用一个锁状态那样在多核之间争用同一个缓存行
+ *
+ * @author hck 2026-10-18 03:10
+ */
+@Slf4j
+final class DirectBufferGuard {
+
+  private static final int MAX_STRIPES = 64;
+  /**
+   * 相邻槽位间隔 16 个 long (128 字节), 避免伪共享
+   */
+  private static final int PADDING = 16;
+
+  private final AtomicLongArray readers;
+  private final int mask;
+  private volatile boolean closed;
+
+  DirectBufferGuard() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, cores * 2 - 1)) << 1);
+    this.readers = new AtomicLongArray(stripes * PADDING);
+    this.mask = stripes - 1;
+  }
+
+  /**
+   * <p>开始一次读取</p>
+   *
+   * @return 需要传给 {@link #exit(int)} 的槽位; 已关闭时返回 -1, 此时不能访问内存, 也不需要调用 exit
+   */
+  int enter() {
+    int cell = (int) (Thread.currentThread().getId() & mask) * PADDING;
+    readers.incrementAndGet(cell);
+    // 先登记再检查状态, 与 close 先设置状态再检查登记数配对, 两者至少有一方能看到对方
+    if (closed) {
+      readers.decrementAndGet(cell);
+      return -1;
+    }
+    return cell;
+  }
+
+  /**
+   * <p>结束一次读取</p>
+   *
+   * @param cell {@link #enter()} 返回的槽位
+   */
+  void exit(int cell) {
+    readers.decrementAndGet(cell);
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * <p>拒绝新的读取, 并等待进行中的读取结束, 返回后可以安全释放内存</p>
+   *
+   * @return 本次调用完成了关闭时返回 {@code true}, 已经关闭过时返回 {@code false}
+   */
+  synchronized boolean close() {
+    if (closed) {
+      return false;
+    }
+    closed = true;
+    for (int i = 0; i < readers.length(); i += PADDING) {
+      while (readers.get(i) != 0L) {
+        Thread.yield();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * <p>立即释放直接内存: JDK 9 及以上通过 {@code Unsafe.invokeCleaner}, JDK 8 通过 {@code DirectBuffer.cleaner()};
+   * 当前 JVM 不支持时退回到等待 {@code ByteBuffer} 被垃圾回收时释放. 调用前需要通过 {@link #close()}
+   * 确认没有进行中的读取</p>
+   *
+   * @param buffer 直接内存或内存映射的 {@code ByteBuffer}
+   */
+  static void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+    } catch (NoSuchMethodException e) {
+      try {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        log.debug("释放直接内存失败, 等待垃圾回收时释放", ex);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("释放直接内存失败, 等待垃圾回收时释放", e);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>用于估算键访问频率的 Count-Min Sketch, 每个计数器占 4 位, 最大计数为 15</p>
+ * <p>每个键对应 4 个计数器, 估算值取其中的最小值; 累计增加次数达到容量的 10 倍时,
+ * 所有计数器减半, 使频率能反映最近的访问情况
+ * <p>本类不是线程安全的, 调用方需要持有所属分段的锁
+ *
+ * @author hck 2026-10-17 11:02
+ */
+final class FrequencySketch {
+
+  private static final long[] SEED = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAX_TABLE_SIZE = 1 << 30;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * @param maximumSize 需要跟踪的条目数量
+   */
+  FrequencySketch(long maximumSize) {
+    int capacity = (int) Math.min(Math.max(maximumSize, 1L), MAX_TABLE_SIZE);
+    int tableSize = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.table = new long[tableSize];
+    this.tableMask = tableSize - 1;
+    this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * <p>返回键的估算访问频率</p>
+   *
+   * @param key 键
+   * @return 0 到 15 之间的估算值
+   */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * <p>增加键的访问频率</p>
+   *
+   * @param key 键
+   */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && (++size == sampleSize)) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xfL << offset;
+    if ((table[i] & mask) != mask) {
+      table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    int count = 0;
+    for (int i = 0; i < table.length; i++) {
+      count += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size - (count >>> 2)) >>> 1;
+  }
+
+  private int indexOf(int item, int i) {
+    long hash = (item + SEED[i]) * SEED[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
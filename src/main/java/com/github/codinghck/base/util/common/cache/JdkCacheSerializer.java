@@ -0,0 +1,41 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * <p>基于 JDK 自带序列化的 {@link CacheSerializer}, 对象需要实现 {@code Serializable}</p>
+ * <p>反序列化会创建字节中指定的任意类的对象, 只能用于本进程写入的数据, 例如堆外存储和本机的快照文件;
+ * 不能用于从网络接收的数据, 例如 {@code InvalidationBroadcaster}, 构造的数据可以借此执行任意代码
+ *
+ * @author hck 2026-10-17 14:14
+ */
+@SuppressWarnings("unused")
+public class JdkCacheSerializer<T> implements CacheSerializer<T> {
+
+  private static final int INIT_BUFFER_SIZE = 256;
+
+  @Override
+  public byte[] serialize(T value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(INIT_BUFFER_SIZE);
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("序列化失败: " + value.getClass().getName(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T deserialize(byte[] bytes) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (T) in.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalArgumentException("反序列化失败", e);
+    }
+  }
+}
@@ -0,0 +1,496 @@
+package com.github.codinghck.base.util.common.cache;
+
+import com.github.codinghck.base.util.common.base.date.Clock;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.StampedLock;
+import org.springframework.util.Assert;
+
+/**
+ * <p>键为 {@code long} 的缓存, 过期语义与 {@link CacheMap} 相同, 适合用户 ID, 订单 ID 等数字键</p>
+ * <p>每个分段用开放寻址 (线性探测) 把键, 值和过期时间分别存放在并行的 {@code long[]}, {@code Object[]}
+ * 和 {@code long[]} 数组中, 不需要装箱的 {@code Long}, 条目对象和链表节点, 每个条目约占 24 字节
+ * (负载因子 0.5 时约 48 字节), 另有 8 字节用于过期环的槽位; 删除时向前移动后续条目, 不留墓碑
+ * <p>读操作使用 {@code StampedLock} 的乐观读, 不加锁; 写操作只锁定键所在的分段.
+ * 读取时会检查是否过期; 写入时把键追加到过期时间所在刻度 ({@link TimerWheel#TICK_MILLIS}) 对应的槽位,
+ * 槽位组成一个环, 每个槽位是一个 {@code long[]}, 写入时不装箱也不分配对象 (只在槽位数组扩容时分配).
+ * 共用的清理线程每个刻度只处理刚刚经过的槽位, 不扫描整张表, 见 {@link CacheScheduler};
+ * 过期时间超过一圈的键在经过的槽位中保留到对应的那一圈.
+ * 键被覆盖或删除后留在旧槽位中的记录在处理时丢弃, 失效记录过多时按当前条目重建所有槽位
+ * <p>时间读取使用构造时传入的 {@link Clock}, 默认为 {@link Clock#coarse()}
+ *
+ * @author hck 2026-10-17 18:30
+ */
+@SuppressWarnings("unused")
+public class LongCacheMap<V> implements AutoCloseable {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 16;
+  private static final int MAX_STRIPES = 1 << 16;
+  private static final int MAX_TABLE_SIZE = 1 << 30;
+  private static final int TICK_SHIFT = Long.numberOfTrailingZeros(TimerWheel.TICK_MILLIS);
+  /**
+   * 过期环的槽位数, 一圈 256 个刻度约 4.4 分钟, 默认的过期时间在一圈之内
+   */
+  private static final int WHEEL_SLOTS = 256;
+  private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+  private static final int MIN_SLOT_CAPACITY = 8;
+  private static final int MIN_REBUILD_THRESHOLD = 64;
+
+  /**
+   * <p>一个分段的哈希表, 扩容时整体替换, 保证乐观读看到的三个数组属于同一张表</p>
+   */
+  private static final class Table {
+    final long[] keys;
+    final Object[] values;
+    final long[] deadlines;
+    final int mask;
+
+    Table(int capacity) {
+      this.keys = new long[capacity];
+      this.values = new Object[capacity];
+      this.deadlines = new long[capacity];
+      this.mask = capacity - 1;
+    }
+  }
+
+  private static final class Stripe extends StampedLock {
+
+    private static final long serialVersionUID = 2486047405383211874L;
+
+    volatile Table table;
+    volatile int size;
+    /**
+     * 过期环, 刻度 t 的键放在槽位 {@code t & WHEEL_MASK}, 未使用的槽位为 {@code null};
+     * 同一个键可能因为覆盖写入出现在多个槽位中. 只在持有分段写锁时访问
+     */
+    long[][] wheel = new long[WHEEL_SLOTS][];
+    final int[] wheelSizes = new int[WHEEL_SLOTS];
+    /**
+     * 所有槽位中的记录数, 包括已失效的记录; 清理线程不加锁读取, 用于跳过没有记录的分段
+     */
+    volatile int scheduled;
+    /**
+     * 下一个要处理的刻度, 早于它的刻度都已处理过; 清理线程不加锁读取, 用于跳过本刻度已处理的分段
+     */
+    volatile long cursor;
+
+    Stripe(int capacity, long nowTick) {
+      this.table = new Table(capacity);
+      this.cursor = nowTick;
+    }
+  }
+
+  private final Clock clock;
+  private final long cacheTimeout;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+  private final ScheduledFuture<?> cleanUpTask;
+  private volatile boolean closed;
+
+  public LongCacheMap() {
+    this(CacheMapBuilder.DEFAULT_EXPIRE_MILLIS);
+  }
+
+  /**
+   * @param expireMillis 默认过期毫秒数
+   */
+  public LongCacheMap(long expireMillis) {
+    this(expireMillis, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param expireMillis 默认过期毫秒数
+   * @param initialCapacity 预计的条目数, 用于减少扩容
+   */
+  public LongCacheMap(long expireMillis, int initialCapacity) {
+    this(expireMillis, initialCapacity, Clock.coarse());
+  }
+
+  /**
+   * @param expireMillis 默认过期毫秒数
+   * @param initialCapacity 预计的条目数, 用于减少扩容
+   * @param clock 读取当前时间的时钟, 测试时可以使用 {@link com.github.codinghck.base.util.common.base.date.ManualClock}
+   */
+  public LongCacheMap(long expireMillis, int initialCapacity, Clock clock) {
+    Assert.isTrue(expireMillis > 0, "过期时间必须大于 0");
+    Assert.isTrue(initialCapacity >= 0, "初始容量不能小于 0");
+    Assert.notNull(clock, "clock 不能为 null");
+    this.clock = clock;
+    this.cacheTimeout = expireMillis;
+    int cores = Runtime.getRuntime().availableProcessors();
+    int stripeCount = ceilingPowerOfTwo(Math.min(cores * 4, MAX_STRIPES));
+    int stripeCapacity = ceilingPowerOfTwo(Math.max(2, initialCapacity / stripeCount * 2));
+    this.stripes = new Stripe[stripeCount];
+    long nowTick = clock.millis() >>> TICK_SHIFT;
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(stripeCapacity, nowTick);
+    }
+    this.stripeMask = stripeCount - 1;
+    this.cleanUpTask = CacheScheduler.schedule(this, LongCacheMap::cleanUp);
+  }
+
+  /**
+   * <p>获取未过期的值</p>
+   *
+   * @param key 键
+   * @return 值, 不存在或已过期时返回 {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    long hash = hash(key);
+    Stripe stripe = stripeFor(hash);
+    long stamp = stripe.tryOptimisticRead();
+    Object value = null;
+    long deadline = 0L;
+    if (stamp != 0L) {
+      Table table = stripe.table;
+      int index = find(table, key, hash);
+      if (index >= 0) {
+        value = table.values[index];
+        deadline = table.deadlines[index];
+      }
+    }
+    if (stamp == 0L || !stripe.validate(stamp)) {
+      stamp = stripe.readLock();
+      try {
+        Table table = stripe.table;
+        int index = find(table, key, hash);
+        value = index < 0 ? null : table.values[index];
+        deadline = index < 0 ? 0L : table.deadlines[index];
+      } finally {
+        stripe.unlockRead(stamp);
+      }
+    }
+    return value == null || deadline <= clock.millis() ? null : (V) value;
+  }
+
+  /**
+   * <p>判断是否存在未过期的条目</p>
+   *
+   * @param key 键
+   * @return 存在时返回 {@code true}
+   */
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * <p>放入缓存, 使用默认的过期时间</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @return 放入的值
+   */
+  public V put(long key, V value) {
+    return put(key, value, cacheTimeout);
+  }
+
+  /**
+   * <p>放入缓存, 并为该条目单独指定过期时间</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @param ttl 过期毫秒数, 从放入时开始计算
+   * @return 放入的值
+   */
+  public V put(long key, V value, long ttl) {
+    Assert.notNull(value, "value 不能为 null");
+    Assert.isTrue(ttl > 0, "ttl 必须大于 0");
+    Assert.state(!closed, "缓存已关闭");
+    long deadline = clock.millis() + ttl;
+    long hash = hash(key);
+    Stripe stripe = stripeFor(hash);
+    long stamp = stripe.writeLock();
+    try {
+      Table table = stripe.table;
+      int index = find(table, key, hash);
+      if (index < 0) {
+        if ((stripe.size + 1L) * 2 > table.keys.length && table.keys.length < MAX_TABLE_SIZE) {
+          table = resize(stripe, table.keys.length << 1);
+        }
+        index = (int) hash & table.mask;
+        while (table.values[index] != null) {
+          index = (index + 1) & table.mask;
+        }
+        table.keys[index] = key;
+        stripe.size++;
+      }
+      table.deadlines[index] = deadline;
+      table.values[index] = value;
+      schedule(stripe, key, deadline);
+      if (stripe.scheduled > Math.max(MIN_REBUILD_THRESHOLD, stripe.size * 2)) {
+        rebuildWheel(stripe);
+      }
+    } finally {
+      stripe.unlockWrite(stamp);
+    }
+    return value;
+  }
+
+  /**
+   * <p>移除键对应的条目</p>
+   *
+   * @param key 键
+   * @return 被移除的未过期的值, 不存在或已过期时返回 {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    long hash = hash(key);
+    Stripe stripe = stripeFor(hash);
+    long stamp = stripe.writeLock();
+    try {
+      Table table = stripe.table;
+      int index = find(table, key, hash);
+      if (index < 0) {
+        return null;
+      }
+      Object value = table.values[index];
+      long deadline = table.deadlines[index];
+      delete(stripe, table, index);
+      return deadline <= clock.millis() ? null : (V) value;
+    } finally {
+      stripe.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * <p>获取存储中的条目数, 可能包含已过期但尚未清理的条目</p>
+   *
+   * @return 条目数
+   */
+  public int size() {
+    long size = 0;
+    for (Stripe stripe : stripes) {
+      size += stripe.size;
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  public boolean isEmpty() {
+    for (Stripe stripe : stripes) {
+      if (stripe.size != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * <p>清空所有条目, 各分段恢复到最小容量</p>
+   */
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      long stamp = stripe.writeLock();
+      try {
+        stripe.table = new Table(2);
+        stripe.size = 0;
+        clearWheel(stripe);
+      } finally {
+        stripe.unlockWrite(stamp);
+      }
+    }
+  }
+
+  /**
+   * <p>处理各分段中上次清理以来经过的槽位, 只访问槽位中的键; 分段锁被其他线程持有时跳过, 留待下一次清理</p>
+   */
+  public void cleanUp() {
+    long now = clock.millis();
+    long nowTick = now >>> TICK_SHIFT;
+    for (Stripe stripe : stripes) {
+      if (stripe.scheduled == 0 || stripe.cursor >= nowTick) {
+        continue;
+      }
+      long stamp = stripe.tryWriteLock();
+      if (stamp == 0L) {
+        continue;
+      }
+      try {
+        expireEntries(stripe, now, nowTick);
+      } finally {
+        stripe.unlockWrite(stamp);
+      }
+    }
+  }
+
+  /**
+   * <p>关闭缓存: 停止清理任务并清空所有条目, 关闭后写入时抛出 {@code IllegalStateException}</p>
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    cleanUpTask.cancel(false);
+    clear();
+  }
+
+  /**
+   * <p>处理从 {@code cursor} 到 {@code nowTick} 之前经过的槽位, 间隔超过一圈时每个槽位只处理一次.
+   * 调用方需要持有分段写锁</p>
+   */
+  private static void expireEntries(Stripe stripe, long now, long nowTick) {
+    long from = stripe.cursor;
+    long until = from + Math.min(nowTick - from, WHEEL_SLOTS);
+    for (long tick = from; tick < until; tick++) {
+      expireSlot(stripe, (int) tick & WHEEL_MASK, now);
+    }
+    stripe.cursor = nowTick;
+  }
+
+  /**
+   * <p>移除槽位中仍然存在且已过期的键, 保留过期时间在之后某一圈的键, 丢弃键已被删除或被覆盖到
+   * 其他槽位的失效记录; 保留的记录原地前移. 调用方需要持有分段写锁</p>
+   */
+  private static void expireSlot(Stripe stripe, int slot, long now) {
+    long[] keys = stripe.wheel[slot];
+    int size = stripe.wheelSizes[slot];
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      long key = keys[i];
+      Table table = stripe.table;
+      int index = find(table, key, hash(key));
+      if (index < 0) {
+        continue;
+      }
+      long deadline = table.deadlines[index];
+      if (deadline <= now) {
+        delete(stripe, table, index);
+      } else if (((int) (deadline >>> TICK_SHIFT) & WHEEL_MASK) == slot) {
+        keys[kept++] = key;
+      }
+    }
+    stripe.wheelSizes[slot] = kept;
+    if (kept != size) {
+      stripe.scheduled -= size - kept;
+    }
+  }
+
+  /**
+   * <p>把键追加到过期时间所在刻度对应的槽位, 调用方需要持有分段写锁</p>
+   */
+  private static void schedule(Stripe stripe, long key, long deadline) {
+    int slot = (int) (deadline >>> TICK_SHIFT) & WHEEL_MASK;
+    long[] keys = stripe.wheel[slot];
+    int size = stripe.wheelSizes[slot];
+    if (keys == null) {
+      keys = stripe.wheel[slot] = new long[MIN_SLOT_CAPACITY];
+    } else if (size == keys.length) {
+      keys = stripe.wheel[slot] = Arrays.copyOf(keys, size << 1);
+    }
+    keys[size] = key;
+    stripe.wheelSizes[slot] = size + 1;
+    stripe.scheduled++;
+  }
+
+  /**
+   * <p>失效记录过多时按表中的条目重建所有槽位, 每个键只保留一条记录; 两次重建之间至少有分段条目数次写入,
+   * 均摊到每次写入是 O(1). 调用方需要持有分段写锁</p>
+   */
+  private static void rebuildWheel(Stripe stripe) {
+    clearWheel(stripe);
+    Table table = stripe.table;
+    for (int i = 0; i < table.values.length; i++) {
+      if (table.values[i] != null) {
+        schedule(stripe, table.keys[i], table.deadlines[i]);
+      }
+    }
+  }
+
+  /**
+   * <p>丢弃所有槽位, 槽位数组一并释放, 避免一次写入高峰后长期占用内存. 调用方需要持有分段写锁</p>
+   */
+  private static void clearWheel(Stripe stripe) {
+    stripe.wheel = new long[WHEEL_SLOTS][];
+    Arrays.fill(stripe.wheelSizes, 0);
+    stripe.scheduled = 0;
+  }
+
+  /**
+   * <p>查找键所在的位置, 可以在乐观读中调用, 探测次数不超过表的长度</p>
+   */
+  private static int find(Table table, long key, long hash) {
+    int index = (int) hash & table.mask;
+    for (int probes = 0; probes <= table.mask; probes++) {
+      if (table.values[index] == null) {
+        return -1;
+      }
+      if (table.keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & table.mask;
+    }
+    return -1;
+  }
+
+  /**
+   * <p>删除位置上的条目, 并把同一探测序列中的后续条目向前移动, 调用方需要持有分段写锁</p>
+   */
+  private static void delete(Stripe stripe, Table table, int index) {
+    int hole = index;
+    int next = index;
+    while (true) {
+      next = (next + 1) & table.mask;
+      if (table.values[next] == null) {
+        break;
+      }
+      int home = (int) hash(table.keys[next]) & table.mask;
+      // home 不在 (hole, next] 区间内时, 该条目可以前移到 hole
+      boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+      if (movable) {
+        table.keys[hole] = table.keys[next];
+        table.deadlines[hole] = table.deadlines[next];
+        table.values[hole] = table.values[next];
+        hole = next;
+      }
+    }
+    table.values[hole] = null;
+    table.keys[hole] = 0L;
+    table.deadlines[hole] = 0L;
+    stripe.size--;
+  }
+
+  /**
+   * <p>扩容并重新放入所有条目, 调用方需要持有分段写锁</p>
+   */
+  private static Table resize(Stripe stripe, int capacity) {
+    Table old = stripe.table;
+    Table table = new Table(capacity);
+    for (int i = 0; i < old.values.length; i++) {
+      if (old.values[i] == null) {
+        continue;
+      }
+      int index = (int) hash(old.keys[i]) & table.mask;
+      while (table.values[index] != null) {
+        index = (index + 1) & table.mask;
+      }
+      table.keys[index] = old.keys[i];
+      table.deadlines[index] = old.deadlines[i];
+      table.values[index] = old.values[i];
+    }
+    stripe.table = table;
+    return table;
+  }
+
+  private Stripe stripeFor(long hash) {
+    return stripes[(int) (hash >>> 32) & stripeMask];
+  }
+
+  /**
+   * <p>打散键的各个位, 低 32 位用于分段内的位置, 高 32 位用于选择分段</p>
+   */
+  private static long hash(long key) {
+    long h = key * 0x9e3779b97f4a7c15L;
+    return h ^ (h >>> 29);
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
+
+  @Override
+  public String toString() {
+    return "LongCacheMap{size=" + size() + ", expireMillis=" + cacheTimeout + "}";
+  }
+}
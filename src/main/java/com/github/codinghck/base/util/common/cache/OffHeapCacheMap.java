@@ -0,0 +1,608 @@
+package com.github.codinghck.base.util.common.cache;
+
+import com.github.codinghck.base.util.common.base.date.Clock;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>把值序列化后存放在堆外内存中的缓存, 实现 Map 接口, 适合缓存体积较大的对象而不增加 GC 压力</p>
+ * <p>堆外内存被划分为固定大小的 slab ({@code ByteBuffer.allocateDirect}), 按需分配. slab 平均分给多个分段,
+ * 键按哈希固定属于一个分段, 写操作只锁定键所在的分段, 不同分段的写入互不阻塞; 总容量不能被分段整除的部分不会使用.
+ * 写入时把序列化后的字节追加到分段当前 slab 的末尾, 放不下时切换到分段的下一个 slab; 分段的 slab 都已分配时
+ * 回收其中最早写入的 slab, 其中的条目一并淘汰 (FIFO). 被覆盖或删除的条目占用的空间同样在所在 slab 被回收时释放
+ * <p>堆内只保存键和每个条目的位置信息. 读操作不加锁, 通过 slab 上的 {@code StampedLock}
+ * 乐观读检查读取期间该 slab 是否被回收, 被回收时视为未命中
+ * <p>值序列化后不能超过单个 slab 的大小, 否则 {@link #put} 抛出 {@code IllegalArgumentException}
+ * <p>过期条目由各分段的 {@link TimerWheel} 在共用的清理线程中移除, 见 {@link CacheScheduler};
+ * {@link #size()} 会先推进各分段的时间轮, 已过期的条目最多在一个刻度 ({@link TimerWheel#TICK_MILLIS}) 内仍被计入.
+ * 时间读取使用构造时传入的 {@link Clock}, 默认为 {@link Clock#coarse()}
+ * <p>{@link #close()} 等待进行中的读取结束后立即释放所有 slab, 不依赖 {@code ByteBuffer} 被垃圾回收
+ *
+ * @author hck 2026-10-17 14:20
+ */
+@SuppressWarnings("unused")
+public class OffHeapCacheMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+  private static final int DEFAULT_SLAB_BYTES = 4 << 20;
+  private static final int MAX_STRIPES = 64;
+
+  private static final class Slab<K> {
+    final StampedLock lock = new StampedLock();
+    final List<K> keys = new ArrayList<>();
+    ByteBuffer buffer;
+    volatile long generation;
+    int position;
+  }
+
+  private static final class Location {
+    final Slab<?> slab;
+    final long generation;
+    final int offset;
+    final int length;
+
+    Location(Slab<?> slab, long generation, int offset, int length) {
+      this.slab = slab;
+      this.generation = generation;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * <p>分段: 自己的 slab, 时间轮和写锁; 分段内的 slab, 时间轮以及索引中属于该分段的键只在持有锁时修改</p>
+   */
+  private static final class Stripe<K> extends ReentrantLock {
+
+    private static final long serialVersionUID = 6270925870914409718L;
+
+    final Slab<K>[] slabs;
+    final TimerWheel<K, Location> timerWheel;
+    int current = -1;
+
+    @SuppressWarnings("unchecked")
+    Stripe(int slabCount, long now, Map<K, CacheEntry<K, Location>> index) {
+      this.slabs = new Slab[slabCount];
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = new Slab<>();
+      }
+      this.timerWheel = new TimerWheel<>(now, entry -> {
+        index.remove(entry.key, entry);
+        return true;
+      });
+    }
+  }
+
+  /**
+   * 条目的值是堆外位置, 借用 {@link CacheEntry} 记录过期时间并挂到时间轮上
+   */
+  private final ConcurrentHashMap<K, CacheEntry<K, Location>> index = new ConcurrentHashMap<>();
+  private final Stripe<K>[] stripes;
+  private final int stripeMask;
+  private final int slabBytes;
+  private final long cacheTimeout;
+  private final CacheSerializer<V> serializer;
+  private final Clock clock;
+  private final DirectBufferGuard guard = new DirectBufferGuard();
+  private final ScheduledFuture<?> cleanUpTask;
+  private Set<Entry<K, V>> entrySet;
+  private Set<K> keySet;
+
+  /**
+   * @param capacityBytes 堆外内存总容量
+   * @param serializer 值的序列化方式
+   */
+  public OffHeapCacheMap(long capacityBytes, CacheSerializer<V> serializer) {
+    this(capacityBytes, DEFAULT_SLAB_BYTES, CacheMapBuilder.DEFAULT_EXPIRE_MILLIS, serializer);
+  }
+
+  /**
+   * @param capacityBytes 堆外内存总容量
+   * @param slabBytes 单个 slab 的大小, 也是可缓存的单个值的最大字节数
+   * @param expireMillis 默认过期毫秒数
+   * @param serializer 值的序列化方式
+   */
+  public OffHeapCacheMap(long capacityBytes, int slabBytes, long expireMillis,
+      CacheSerializer<V> serializer) {
+    this(capacityBytes, slabBytes, expireMillis, serializer, Clock.coarse());
+  }
+
+  /**
+   * @param capacityBytes 堆外内存总容量
+   * @param slabBytes 单个 slab 的大小, 也是可缓存的单个值的最大字节数
+   * @param expireMillis 默认过期毫秒数
+   * @param serializer 值的序列化方式
+   * @param clock 读取当前时间的时钟, 测试时可以使用 {@link com.github.codinghck.base.util.common.base.date.ManualClock}
+   */
+  @SuppressWarnings("unchecked")
+  public OffHeapCacheMap(long capacityBytes, int slabBytes, long expireMillis,
+      CacheSerializer<V> serializer, Clock clock) {
+    Assert.isTrue(slabBytes > 0, "slab 大小必须大于 0");
+    Assert.isTrue(capacityBytes >= slabBytes, "总容量不能小于 slab 大小");
+    Assert.isTrue(capacityBytes / slabBytes <= Integer.MAX_VALUE, "slab 数量过多");
+    Assert.isTrue(expireMillis > 0, "过期时间必须大于 0");
+    Assert.notNull(serializer, "serializer 不能为 null");
+    Assert.notNull(clock, "clock 不能为 null");
+    this.slabBytes = slabBytes;
+    this.cacheTimeout = expireMillis;
+    this.serializer = serializer;
+    this.clock = clock;
+    int slabCount = (int) (capacityBytes / slabBytes);
+    int cores = Runtime.getRuntime().availableProcessors();
+    // 每个分段至少有一个 slab
+    int stripeCount = Math.min(Integer.highestOneBit(slabCount), ceilingPowerOfTwo(Math.min(cores * 4, MAX_STRIPES)));
+    long now = clock.millis();
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe<>(slabCount / stripeCount, now, index);
+    }
+    this.stripeMask = stripeCount - 1;
+    this.cleanUpTask = CacheScheduler.schedule(this, OffHeapCacheMap::cleanUp);
+  }
+
+  /**
+   * <p>返回未过期条目的视图, 遍历时才读取并反序列化值, 所在 slab 已被回收的条目会被跳过</p>
+   */
+  @NotNull
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> view = entrySet;
+    return view == null ? (entrySet = new EntrySetView()) : view;
+  }
+
+  /**
+   * <p>返回未过期的键的视图, 不读取堆外的值</p>
+   */
+  @NotNull
+  @Override
+  public Set<K> keySet() {
+    Set<K> view = keySet;
+    return view == null ? (keySet = new KeySetView()) : view;
+  }
+
+  /**
+   * <p>先移除各分段已到期的条目, 再返回索引中的条目数</p>
+   */
+  @Override
+  public int size() {
+    long now = clock.millis();
+    for (Stripe<K> stripe : stripes) {
+      stripe.lock();
+      try {
+        stripe.timerWheel.advance(now);
+      } finally {
+        stripe.unlock();
+      }
+    }
+    return index.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    CacheEntry<K, Location> entry = key == null ? null : index.get(key);
+    return entry != null && !entry.isExpired(clock.millis());
+  }
+
+  /**
+   * <p>读取未过期的值, 过期条目留给时间轮移除; 所在 slab 已被回收时视为未命中</p>
+   */
+  @Override
+  public V get(Object key) {
+    CacheEntry<K, Location> entry = key == null ? null : index.get(key);
+    if (entry == null || entry.isExpired(clock.millis())) {
+      return null;
+    }
+    byte[] bytes = read(entry.getValue());
+    return bytes == null ? null : serializer.deserialize(bytes);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return put(key, value, cacheTimeout);
+  }
+
+  /**
+   * <p>放入缓存, 并为该条目单独指定过期时间</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @param ttl 过期毫秒数, 从放入时开始计算
+   * @return 放入的值
+   * @throws IllegalArgumentException 值序列化后超过单个 slab 的大小时抛出, 缓存中原有的值不变
+   */
+  public V put(K key, V value, long ttl) {
+    Assert.notNull(key, "key 不能为 null");
+    Assert.notNull(value, "value 不能为 null");
+    Assert.isTrue(ttl > 0, "ttl 必须大于 0");
+    byte[] bytes = serializer.serialize(value);
+    if (bytes.length > slabBytes) {
+      throw new IllegalArgumentException("值序列化后为 " + bytes.length + " 字节, 超过 slab 大小 " + slabBytes);
+    }
+    long now = clock.millis();
+    Stripe<K> stripe = stripeFor(key);
+    stripe.lock();
+    try {
+      Assert.state(!guard.isClosed(), "缓存已关闭");
+      Slab<K> slab = slabFor(stripe, bytes.length);
+      ByteBuffer target = slab.buffer.duplicate();
+      target.position(slab.position);
+      target.put(bytes);
+      Location location = new Location(slab, slab.generation, slab.position, bytes.length);
+      CacheEntry<K, Location> entry = new CacheEntry<>(key, location, now, ttl);
+      unlink(stripe, index.put(key, entry));
+      stripe.timerWheel.schedule(entry);
+      slab.position += bytes.length;
+      slab.keys.add(key);
+    } finally {
+      stripe.unlock();
+    }
+    return value;
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (key == null) {
+      return null;
+    }
+    V value = get(key);
+    Stripe<K> stripe = stripeFor(key);
+    stripe.lock();
+    try {
+      unlink(stripe, index.remove(key));
+    } finally {
+      stripe.unlock();
+    }
+    return value;
+  }
+
+  /**
+   * <p>清空所有条目, 已分配的堆外内存保留以便复用</p>
+   */
+  @Override
+  public void clear() {
+    lockAll();
+    try {
+      index.clear();
+      for (Stripe<K> stripe : stripes) {
+        stripe.timerWheel.clear();
+        for (Slab<K> slab : stripe.slabs) {
+          if (slab.buffer != null) {
+            recycle(slab);
+          }
+        }
+        stripe.current = -1;
+      }
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * <p>推进各分段的时间轮, 移除已到期的条目; 分段锁被其他线程持有时跳过该分段, 留待下一次清理</p>
+   */
+  public void cleanUp() {
+    long now = clock.millis();
+    for (Stripe<K> stripe : stripes) {
+      if (stripe.tryLock()) {
+        try {
+          stripe.timerWheel.advance(now);
+        } finally {
+          stripe.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * <p>停止清理任务, 等待进行中的读取结束后清空所有条目并立即释放所有 slab; 之后读取都不命中, 写入抛出异常</p>
+   */
+  @Override
+  public void close() {
+    cleanUpTask.cancel(false);
+    if (!guard.close()) {
+      return;
+    }
+    lockAll();
+    try {
+      index.clear();
+      for (Stripe<K> stripe : stripes) {
+        stripe.timerWheel.clear();
+        for (Slab<K> slab : stripe.slabs) {
+          if (slab.buffer != null) {
+            recycle(slab);
+            DirectBufferGuard.release(slab.buffer);
+            slab.buffer = null;
+          }
+        }
+        stripe.current = -1;
+      }
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * <p>获取当前已分配的堆外内存字节数</p>
+   *
+   * @return 已分配字节数
+   */
+  public long allocatedBytes() {
+    long allocated = 0;
+    for (Stripe<K> stripe : stripes) {
+      for (Slab<K> slab : stripe.slabs) {
+        if (slab.buffer != null) {
+          allocated += slabBytes;
+        }
+      }
+    }
+    return allocated;
+  }
+
+  private Stripe<K> stripeFor(Object key) {
+    int h = key.hashCode();
+    h ^= (h >>> 16);
+    return stripes[h & stripeMask];
+  }
+
+  private void lockAll() {
+    for (Stripe<K> stripe : stripes) {
+      stripe.lock();
+    }
+  }
+
+  private void unlockAll() {
+    for (Stripe<K> stripe : stripes) {
+      stripe.unlock();
+    }
+  }
+
+  /**
+   * <p>在分段中找到能容纳 {@code length} 字节的 slab, 需要持有分段锁</p>
+   */
+  private Slab<K> slabFor(Stripe<K> stripe, int length) {
+    int current = stripe.current;
+    if (current >= 0 && slabBytes - stripe.slabs[current].position >= length) {
+      return stripe.slabs[current];
+    }
+    current = (current + 1) % stripe.slabs.length;
+    stripe.current = current;
+    Slab<K> slab = stripe.slabs[current];
+    if (slab.buffer == null) {
+      slab.buffer = ByteBuffer.allocateDirect(slabBytes);
+    } else {
+      evict(stripe, slab);
+    }
+    return slab;
+  }
+
+  /**
+   * <p>淘汰 slab 中所有仍指向它的条目并回收该 slab, 需要持有分段锁</p>
+   */
+  private void evict(Stripe<K> stripe, Slab<K> slab) {
+    long generation = slab.generation;
+    for (K key : slab.keys) {
+      CacheEntry<K, Location> entry = index.get(key);
+      if (entry != null && entry.getValue().slab == slab && entry.getValue().generation == generation) {
+        index.remove(key);
+        stripe.timerWheel.deschedule(entry);
+      }
+    }
+    recycle(slab);
+  }
+
+  /**
+   * <p>把被替换或移除的条目从时间轮上摘除, 需要持有分段锁</p>
+   */
+  private void unlink(Stripe<K> stripe, CacheEntry<K, Location> old) {
+    if (old != null) {
+      stripe.timerWheel.deschedule(old);
+    }
+  }
+
+  private void recycle(Slab<K> slab) {
+    long stamp = slab.lock.writeLock();
+    try {
+      slab.generation++;
+    } finally {
+      slab.lock.unlockWrite(stamp);
+    }
+    slab.keys.clear();
+    slab.position = 0;
+  }
+
+  /**
+   * <p>乐观读取条目的字节, 读取期间所在 slab 被回收时返回 {@code null}; 通过 {@link DirectBufferGuard}
+   * 保证读取期间 slab 的内存不会被 {@link #close()} 释放</p>
+   */
+  private byte[] read(Location location) {
+    int cell = guard.enter();
+    if (cell < 0) {
+      return null;
+    }
+    try {
+      Slab<?> slab = location.slab;
+      long stamp = slab.lock.tryOptimisticRead();
+      if (stamp == 0L || slab.generation != location.generation) {
+        return null;
+      }
+      byte[] bytes = new byte[location.length];
+      ByteBuffer source = slab.buffer.duplicate();
+      source.position(location.offset);
+      source.get(bytes);
+      return slab.lock.validate(stamp) ? bytes : null;
+    } finally {
+      guard.exit(cell);
+    }
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
+
+  /**
+   * <p>视图迭代器的基类, 直接遍历索引并跳过已过期的条目</p>
+   */
+  private abstract class ViewIterator<E> implements Iterator<E> {
+
+    private final Iterator<CacheEntry<K, Location>> iterator = index.values().iterator();
+    private final long now = clock.millis();
+    private CacheEntry<K, Location> next;
+    private V nextValue;
+    private K lastKey;
+
+    ViewIterator() {
+      advance();
+    }
+
+    /**
+     * <p>是否需要读取值, 只遍历键时不读取堆外内存</p>
+     */
+    abstract boolean readsValue();
+
+    private void advance() {
+      next = null;
+      nextValue = null;
+      while (iterator.hasNext()) {
+        CacheEntry<K, Location> entry = iterator.next();
+        if (entry.isExpired(now)) {
+          continue;
+        }
+        if (readsValue()) {
+          byte[] bytes = read(entry.getValue());
+          if (bytes == null) {
+            continue;
+          }
+          nextValue = serializer.deserialize(bytes);
+        }
+        next = entry;
+        return;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    Entry<K, V> nextEntry() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> result = new SimpleImmutableEntry<>(next.key, nextValue);
+      lastKey = next.key;
+      advance();
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      OffHeapCacheMap.this.remove(lastKey);
+      lastKey = null;
+    }
+  }
+
+  private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+
+    @NotNull
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new ViewIterator<Entry<K, V>>() {
+        @Override
+        boolean readsValue() {
+          return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+          return nextEntry();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return OffHeapCacheMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      V value = get(e.getKey());
+      return value != null && value.equals(e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o)) {
+        return false;
+      }
+      OffHeapCacheMap.this.remove(((Entry<?, ?>) o).getKey());
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      OffHeapCacheMap.this.clear();
+    }
+  }
+
+  private final class KeySetView extends AbstractSet<K> {
+
+    @NotNull
+    @Override
+    public Iterator<K> iterator() {
+      return new ViewIterator<K>() {
+        @Override
+        boolean readsValue() {
+          return false;
+        }
+
+        @Override
+        public K next() {
+          return nextEntry().getKey();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return OffHeapCacheMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!containsKey(o)) {
+        return false;
+      }
+      OffHeapCacheMap.this.remove(o);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      OffHeapCacheMap.this.clear();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>记录读操作的有损环形缓冲区</p>
+ * <p>读线程只做一次 CAS 把条目放入缓冲区, 缓冲区满时直接丢弃该次记录, 因此读操作永远不会阻塞.
+ * 缓冲区中的记录在持有分段锁时批量回放到淘汰策略上
+ *
+ * @author hck 2026-10-17 11:30
+ */
+final class ReadBuffer<K, V> {
+
+  static final int SIZE = 16;
+  private static final int MASK = SIZE - 1;
+
+  private final AtomicReferenceArray<CacheEntry<K, V>> buffer = new AtomicReferenceArray<>(SIZE);
+  private final AtomicLong writeCounter = new AtomicLong();
+  private volatile long readCounter;
+
+  /**
+   * <p>记录一次读操作</p>
+   *
+   * @param entry 被读取的条目
+   * @return 缓冲区已满或已积攒够一批记录时返回 {@code true}, 提示调用方尝试回放
+   */
+  boolean offer(CacheEntry<K, V> entry) {
+    long head = readCounter;
+    long tail = writeCounter.get();
+    long size = tail - head;
+    if (size >= SIZE) {
+      return true;
+    }
+    if (writeCounter.compareAndSet(tail, tail + 1)) {
+      buffer.lazySet((int) (tail & MASK), entry);
+      return size + 1 >= SIZE / 2;
+    }
+    return false;
+  }
+
+  /**
+   * <p>回放缓冲区中的所有记录, 调用方需要持有所属分段的锁</p>
+   *
+   * @param segment 所属分段
+   */
+  void drainTo(CacheSegment<K, V> segment) {
+    long head = readCounter;
+    long tail = writeCounter.get();
+    for (; head < tail; head++) {
+      int index = (int) (head & MASK);
+      CacheEntry<K, V> entry = buffer.get(index);
+      if (entry == null) {
+        break;
+      }
+      buffer.lazySet(index, null);
+      segment.onAccess(entry);
+    }
+    readCounter = head;
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>缓存条目被移除的原因</p>
+ *
+ * @author hck 2026-10-17 16:02
+ */
+public enum RemovalCause {
+
+  /**
+   * 调用 remove, clear 等方法主动移除
+   */
+  EXPLICIT(false),
+
+  /**
+   * 被同一个键的新值替换
+   */
+  REPLACED(false),
+
+  /**
+   * 超过存活时间
+   */
+  EXPIRED(true),
+
+  /**
+   * 超过最大容量被淘汰
+   */
+  SIZE(true),
+
+  /**
+   * 软引用或弱引用的值被垃圾回收
+   */
+  COLLECTED(true);
+
+  private final boolean evicted;
+
+  RemovalCause(boolean evicted) {
+    this.evicted = evicted;
+  }
+
+  /**
+   * <p>是否是缓存自动淘汰的, 而不是调用方主动移除或替换的</p>
+   *
+   * @return 自动淘汰返回 {@code true}
+   */
+  public boolean wasEvicted() {
+    return evicted;
+  }
+}
@@ -0,0 +1,21 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>缓存条目被移除时的回调, 通过 {@link CacheMapBuilder#removalListener(RemovalListener)} 设置</p>
+ * <p>回调在 {@link CacheMapBuilder#executor(java.util.concurrent.Executor)} 设置的线程池中批量执行,
+ * 不会阻塞写入和清理; 回调抛出的异常只会被记录到日志
+ *
+ * @author hck 2026-10-17 20:50
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+  /**
+   * <p>条目被移除</p>
+   *
+   * @param key 键
+   * @param value 值, 原因为 {@link RemovalCause#COLLECTED} 或值已被垃圾回收时为 {@code null}
+   * @param cause 移除原因
+   */
+  void onRemoval(K key, V value, RemovalCause cause);
+}
@@ -0,0 +1,82 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>把移除通知放入队列, 在线程池中批量回调 {@link RemovalListener}</p>
+ * <p>写入和清理线程只做一次入队; 同一时间最多只有一个回放任务, 任务结束前会再次检查队列, 不会遗漏通知
+ *
+ * @author hck 2026-10-17 20:55
+ */
+@Slf4j
+final class RemovalNotifier<K, V> {
+
+  private static final int MAX_BATCH = 1024;
+
+  private static final class Notification<K, V> {
+    final K key;
+    final V value;
+    final RemovalCause cause;
+
+    Notification(K key, V value, RemovalCause cause) {
+      this.key = key;
+      this.value = value;
+      this.cause = cause;
+    }
+  }
+
+  private final RemovalListener<? super K, ? super V> listener;
+  private final Executor executor;
+  private final ConcurrentLinkedQueue<Notification<K, V>> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  RemovalNotifier(RemovalListener<? super K, ? super V> listener, Executor executor) {
+    this.listener = listener;
+    this.executor = executor;
+  }
+
+  /**
+   * <p>记录一次移除, 不会阻塞</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @param cause 移除原因
+   */
+  void offer(K key, V value, RemovalCause cause) {
+    queue.offer(new Notification<>(key, value, cause));
+    schedule();
+  }
+
+  private void schedule() {
+    if (!scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::drain);
+    } catch (RuntimeException e) {
+      scheduled.set(false);
+      log.warn("提交移除通知任务失败, 待通知数: {}", queue.size(), e);
+    }
+  }
+
+  private void drain() {
+    try {
+      Notification<K, V> notification;
+      for (int i = 0; i < MAX_BATCH && (notification = queue.poll()) != null; i++) {
+        try {
+          listener.onRemoval(notification.key, notification.value, notification.cause);
+        } catch (Throwable e) {
+          log.warn("移除回调执行失败, key: {}, cause: {}", notification.key, notification.cause, e);
+        }
+      }
+    } finally {
+      scheduled.set(false);
+    }
+    if (!queue.isEmpty()) {
+      schedule();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>缓存统计计数器, 基于 {@code LongAdder}, 高并发下各线程累加到不同的单元, 不会争用同一个变量</p>
+ * <p>未开启统计时所有记录方法都直接返回
+ *
+ * @author hck 2026-10-17 16:08
+ */
+final class StatsCounter {
+
+  /**
+   * 加载耗时直方图各个桶的上限毫秒数, 最后一个桶记录超过 5 秒的加载
+   */
+  static final long[] LOAD_TIME_BUCKETS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+  private final boolean enabled;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder putCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadFailureCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder[] evictionCounts = newAdders(RemovalCause.values().length);
+  private final LongAdder[] loadTimeHistogram = newAdders(LOAD_TIME_BUCKETS_MILLIS.length + 1);
+
+  StatsCounter(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  void recordHit() {
+    if (enabled) {
+      hitCount.increment();
+    }
+  }
+
+  void recordMiss() {
+    if (enabled) {
+      missCount.increment();
+    }
+  }
+
+  void recordPut() {
+    if (enabled) {
+      putCount.increment();
+    }
+  }
+
+  void recordPuts(int count) {
+    if (enabled) {
+      putCount.add(count);
+    }
+  }
+
+  void recordRemoval(RemovalCause cause) {
+    if (enabled) {
+      evictionCounts[cause.ordinal()].increment();
+    }
+  }
+
+  void recordRemovals(RemovalCause cause, int count) {
+    if (enabled) {
+      evictionCounts[cause.ordinal()].add(count);
+    }
+  }
+
+  /**
+   * @param loadNanos 加载耗时纳秒数
+   */
+  void recordLoadSuccess(long loadNanos) {
+    if (enabled) {
+      loadSuccessCount.increment();
+      recordLoadTime(loadNanos);
+    }
+  }
+
+  /**
+   * @param loadNanos 加载耗时纳秒数
+   */
+  void recordLoadFailure(long loadNanos) {
+    if (enabled) {
+      loadFailureCount.increment();
+      recordLoadTime(loadNanos);
+    }
+  }
+
+  /**
+   * <p>获取当前计数的快照</p>
+   *
+   * @return 统计快照
+   */
+  CacheStats snapshot() {
+    long[] removals = new long[evictionCounts.length];
+    for (int i = 0; i < removals.length; i++) {
+      removals[i] = evictionCounts[i].sum();
+    }
+    long[] histogram = new long[loadTimeHistogram.length];
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = loadTimeHistogram[i].sum();
+    }
+    return new CacheStats(hitCount.sum(), missCount.sum(), putCount.sum(),
+        loadSuccessCount.sum(), loadFailureCount.sum(), totalLoadTime.sum(), removals, histogram);
+  }
+
+  private void recordLoadTime(long loadNanos) {
+    totalLoadTime.add(loadNanos);
+    long millis = loadNanos / 1000000L;
+    int bucket = 0;
+    while (bucket < LOAD_TIME_BUCKETS_MILLIS.length && millis >= LOAD_TIME_BUCKETS_MILLIS[bucket]) {
+      bucket++;
+    }
+    loadTimeHistogram[bucket].increment();
+  }
+
+  private static LongAdder[] newAdders(int length) {
+    LongAdder[] adders = new LongAdder[length];
+    for (int i = 0; i < length; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+}
@@ -0,0 +1,22 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>按 UTF-8 编码字符串的 {@link CacheSerializer}, 只会解析出字符串, 可以用于从网络接收的数据</p>
+ *
+ * @author hck 2026-10-18 05:05
+ */
+@SuppressWarnings("unused")
+public class StringCacheSerializer implements CacheSerializer<String> {
+
+  @Override
+  public byte[] serialize(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String deserialize(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
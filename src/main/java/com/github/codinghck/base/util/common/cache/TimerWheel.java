@@ -0,0 +1,161 @@
+package com.github.codinghck.base.util.common.cache;
+
+import com.github.codinghck.base.util.common.lambda.BooleanExecutor;
+
+/**
+ * <p>分层时间轮, 用于在接近过期时间时以均摊 O(1) 的代价移除缓存条目</p>
+ * <p>共 5 层, 每层桶的跨度分别约为 1 秒, 1 分钟, 1 小时, 1.5 天, 过期时间更远的条目统一放在最后一层.
+ * 推进时间时只处理经过的桶, 上层桶里还未到期的条目会被重新放入更精细的下层桶</p>
+ * <p>本类不是线程安全的, 调用方需要持有所属分段的锁
+ *
+ * @author hck 2026-10-17 10:25
+ */
+final class TimerWheel<K, V> {
+
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+      1L << 10,         // 1.02 秒
+      1L << 16,         // 1.09 分钟
+      1L << 22,         // 1.17 小时
+      1L << 27,         // 1.55 天
+      (1L << 27) * 4,   // 6.21 天
+      (1L << 27) * 4,
+  };
+  private static final long[] SHIFT = {
+      Long.numberOfTrailingZeros(SPANS[0]),
+      Long.numberOfTrailingZeros(SPANS[1]),
+      Long.numberOfTrailingZeros(SPANS[2]),
+      Long.numberOfTrailingZeros(SPANS[3]),
+      Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  /**
+   * 最精细一层桶的跨度毫秒数, 也是推进时间轮的建议间隔
+   */
+  static final long TICK_MILLIS = SPANS[0];
+
+  private final CacheEntry<K, V>[][] wheel;
+  private final BooleanExecutor<CacheEntry<K, V>> evictor;
+  private long time;
+
+  /**
+   * @param now 当前时间毫秒数
+   * @param evictor 条目到期时的回调, 返回 {@code false} 表示该条目未能移除, 需要重新调度
+   */
+  @SuppressWarnings("unchecked")
+  TimerWheel(long now, BooleanExecutor<CacheEntry<K, V>> evictor) {
+    this.time = now;
+    this.evictor = evictor;
+    this.wheel = new CacheEntry[BUCKETS.length][];
+    for (int i = 0; i < BUCKETS.length; i++) {
+      wheel[i] = new CacheEntry[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        wheel[i][j] = CacheEntry.sentinel();
+      }
+    }
+  }
+
+  /**
+   * <p>把时间轮推进到 {@code now}, 并移除经过的桶里所有已到期的条目</p>
+   *
+   * @param now 当前时间毫秒数
+   */
+  void advance(long now) {
+    long prevTime = time;
+    time = now;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long prevTicks = prevTime >>> SHIFT[i];
+      long currTicks = now >>> SHIFT[i];
+      if (currTicks - prevTicks <= 0L) {
+        break;
+      }
+      expire(i, prevTicks, currTicks);
+    }
+  }
+
+  /**
+   * <p>调度条目, 条目必须未挂在任何桶上</p>
+   *
+   * @param entry 缓存条目
+   */
+  void schedule(CacheEntry<K, V> entry) {
+    CacheEntry<K, V> sentinel = findBucket(entry.expireAt);
+    link(sentinel, entry);
+  }
+
+  /**
+   * <p>把条目从所在的桶上摘除, 未调度的条目直接忽略</p>
+   *
+   * @param entry 缓存条目
+   */
+  void deschedule(CacheEntry<K, V> entry) {
+    if (entry.nextInWheel != null) {
+      entry.nextInWheel.prevInWheel = entry.prevInWheel;
+      entry.prevInWheel.nextInWheel = entry.nextInWheel;
+      entry.nextInWheel = null;
+      entry.prevInWheel = null;
+    }
+  }
+
+  /**
+   * <p>清空所有的桶</p>
+   */
+  void clear() {
+    for (CacheEntry<K, V>[] buckets : wheel) {
+      for (CacheEntry<K, V> sentinel : buckets) {
+        CacheEntry<K, V> entry = sentinel.nextInWheel;
+        while (entry != sentinel) {
+          CacheEntry<K, V> next = entry.nextInWheel;
+          entry.prevInWheel = null;
+          entry.nextInWheel = null;
+          entry = next;
+        }
+        sentinel.prevInWheel = sentinel;
+        sentinel.nextInWheel = sentinel;
+      }
+    }
+  }
+
+  private void expire(int index, long prevTicks, long currTicks) {
+    CacheEntry<K, V>[] buckets = wheel[index];
+    int mask = buckets.length - 1;
+    int steps = (int) Math.min(1L + currTicks - prevTicks, buckets.length);
+    int start = (int) (prevTicks & mask);
+    int end = start + steps;
+    for (int i = start; i < end; i++) {
+      CacheEntry<K, V> sentinel = buckets[i & mask];
+      CacheEntry<K, V> entry = sentinel.nextInWheel;
+      sentinel.prevInWheel = sentinel;
+      sentinel.nextInWheel = sentinel;
+      while (entry != sentinel) {
+        CacheEntry<K, V> next = entry.nextInWheel;
+        entry.prevInWheel = null;
+        entry.nextInWheel = null;
+        if (!entry.isExpired(time) || !evictor.execute(entry)) {
+          schedule(entry);
+        }
+        entry = next;
+      }
+    }
+  }
+
+  private CacheEntry<K, V> findBucket(long expireAt) {
+    long duration = expireAt - time;
+    int last = wheel.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = expireAt >>> SHIFT[i];
+        int index = (int) (ticks & (wheel[i].length - 1));
+        return wheel[i][index];
+      }
+    }
+    return wheel[last][0];
+  }
+
+  private void link(CacheEntry<K, V> sentinel, CacheEntry<K, V> entry) {
+    entry.prevInWheel = sentinel.prevInWheel;
+    entry.nextInWheel = sentinel;
+    sentinel.prevInWheel.nextInWheel = entry;
+    sentinel.prevInWheel = entry;
+  }
+}
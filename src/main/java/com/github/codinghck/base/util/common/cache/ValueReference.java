@@ -0,0 +1,96 @@
+package com.github.codinghck.base.util.common.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>软引用或弱引用模式下 {@link CacheEntry} 持有的值引用, 记录键以便值被回收后从缓存中移除条目</p>
+ *
+ * @author hck 2026-10-17 20:30
+ */
+interface ValueReference<K, V> {
+
+  /**
+   * <p>获取值</p>
+   *
+   * @return 值, 已被回收时返回 {@code null}
+   */
+  V get();
+
+  /**
+   * <p>获取条目的键</p>
+   *
+   * @return 键
+   */
+  K key();
+
+  /**
+   * <p>值的引用强度, 通过 {@link CacheMapBuilder#softValues()} 或 {@link CacheMapBuilder#weakValues()} 设置</p>
+   */
+  enum Strength {
+
+    STRONG,
+
+    /**
+     * 内存不足时才会被回收, 适合在流量高峰时让出内存
+     */
+    SOFT,
+
+    /**
+     * 值没有其他强引用时即可被回收
+     */
+    WEAK;
+
+    /**
+     * <p>按引用强度包装值</p>
+     *
+     * @param key 键
+     * @param value 值
+     * @param queue 值被回收后引用进入的队列
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 值的引用, 强引用时返回 {@code null}
+     */
+    <K, V> ValueReference<K, V> reference(K key, V value, ReferenceQueue<V> queue) {
+      switch (this) {
+        case SOFT:
+          return new SoftValueReference<>(key, value, queue);
+        case WEAK:
+          return new WeakValueReference<>(key, value, queue);
+        default:
+          return null;
+      }
+    }
+  }
+
+  final class SoftValueReference<K, V> extends SoftReference<V> implements ValueReference<K, V> {
+
+    private final K key;
+
+    SoftValueReference(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return key;
+    }
+  }
+
+  final class WeakValueReference<K, V> extends WeakReference<V> implements ValueReference<K, V> {
+
+    private final K key;
+
+    WeakValueReference(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return key;
+    }
+  }
+}
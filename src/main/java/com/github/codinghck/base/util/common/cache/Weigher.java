@@ -0,0 +1,19 @@
+package com.github.codinghck.base.util.common.cache;
+
+/**
+ * <p>计算缓存条目的权重, 配合 {@link CacheMapBuilder#maximumWeight(long)} 按总权重限制缓存大小</p>
+ *
+ * @author hck 2026-10-17 17:10
+ */
+public interface Weigher<K, V> {
+
+  /**
+   * <p>计算条目的权重, 例如值占用的字节数</p>
+   * <p>权重为 0 的条目不计入总权重, 但仍按 W-TinyLFU 的顺序参与淘汰, 可能在总权重超出上限时被选中</p>
+   *
+   * @param key 键
+   * @param value 值
+   * @return 不小于 0 的权重, 小于 0 时写入抛出 {@code IllegalArgumentException}
+   */
+  int weigh(K key, V value);
+}
@@ -0,0 +1,231 @@
+package com.github.codinghck.base.util.common.cache.invalidation;
+
+import com.github.codinghck.base.util.common.cache.CacheMap;
+import com.github.codinghck.base.util.common.cache.CacheSerializer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * <p>在多个节点的同名 {@link CacheMap} 之间传播失效, 一个节点写入数据源后, 其他节点立即丢弃旧值,
+ * 而不是等到过期</p>
+ * <p>{@link #invalidate(Object)} 立即移除本地条目, 并把键放入待发送集合; 同一个键在一个批次内只发送一次.
+ * 待发送的键每隔 {@code flushIntervalMillis} 毫秒, 或者积攒到 {@code maxBatchSize} 个时编码为一条消息,
+ * 通过 {@link InvalidationTransport} 发送. 收到其他节点的消息时, 调用 {@link CacheMap#invalidateAll(Collection)}
+ * 按分段批量移除
+ * <p>发送失败的键不会重试, 其他节点的旧值最迟在过期时被移除
+ * <p>收到的键由 {@code keySerializer} 反序列化, 通道另一端能发送任意字节. 跨网络使用时请选择只能解析出键本身的
+ * 序列化方式, 例如 {@link com.github.codinghck.base.util.common.cache.StringCacheSerializer};
+ * 不要使用 {@link com.github.codinghck.base.util.common.cache.JdkCacheSerializer}, JDK 反序列化可以被构造的数据
+ * 利用来执行任意代码. 解码时键数和每个键的长度都按消息的实际长度校验
+ *
+ * @author hck 2026-10-17 21:55
+ */
+@Slf4j
+@SuppressWarnings("unused")
+public class InvalidationBroadcaster<K> implements AutoCloseable {
+
+  private static final byte VERSION = 1;
+  private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+  private final String channel;
+  private final CacheMap<K, ?> cache;
+  private final CacheSerializer<K> keySerializer;
+  private final InvalidationTransport transport;
+  private final int maxBatchSize;
+  private final UUID nodeId = UUID.randomUUID();
+  private final Set<K> pending = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService flusher;
+
+  /**
+   * @param channel 缓存的名称, 同一个通道上只处理名称相同的消息
+   * @param cache 本地缓存
+   * @param keySerializer 键的序列化方式, 跨网络时不能使用 JDK 序列化
+   * @param transport 消息通道
+   * @throws IOException 启动通道失败时抛出
+   */
+  public InvalidationBroadcaster(String channel, CacheMap<K, ?> cache, CacheSerializer<K> keySerializer,
+      InvalidationTransport transport) throws IOException {
+    this(channel, cache, keySerializer, transport, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * @param channel 缓存的名称, 同一个通道上只处理名称相同的消息
+   * @param cache 本地缓存
+   * @param keySerializer 键的序列化方式, 跨网络时不能使用 JDK 序列化
+   * @param transport 消息通道
+   * @param flushIntervalMillis 发送间隔毫秒数, 也是其他节点看到失效的最大延迟
+   * @param maxBatchSize 单条消息最多包含的键数, 积攒到这个数量时立即发送
+   * @throws IOException 启动通道失败时抛出
+   */
+  public InvalidationBroadcaster(String channel, CacheMap<K, ?> cache, CacheSerializer<K> keySerializer,
+      InvalidationTransport transport, long flushIntervalMillis, int maxBatchSize) throws IOException {
+    Assert.hasText(channel, "channel 不能为空");
+    Assert.notNull(cache, "cache 不能为 null");
+    Assert.notNull(keySerializer, "keySerializer 不能为 null");
+    Assert.notNull(transport, "transport 不能为 null");
+    Assert.isTrue(flushIntervalMillis > 0, "发送间隔必须大于 0");
+    Assert.isTrue(maxBatchSize > 0, "批次大小必须大于 0");
+    this.channel = channel;
+    this.cache = cache;
+    this.keySerializer = keySerializer;
+    this.transport = transport;
+    this.maxBatchSize = maxBatchSize;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "cache-invalidation-" + channel);
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      transport.start(this::receive);
+    } catch (IOException | RuntimeException e) {
+      flusher.shutdownNow();
+      throw e;
+    }
+    flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * <p>移除本地条目, 并通知其他节点移除</p>
+   *
+   * @param key 键
+   */
+  public void invalidate(K key) {
+    Assert.notNull(key, "key 不能为 null");
+    cache.remove(key);
+    enqueue(key);
+  }
+
+  /**
+   * <p>批量移除本地条目, 并通知其他节点移除</p>
+   *
+   * @param keys 键
+   */
+  public void invalidateAll(Collection<? extends K> keys) {
+    cache.invalidateAll(keys);
+    for (K key : keys) {
+      if (key != null) {
+        enqueue(key);
+      }
+    }
+  }
+
+  /**
+   * <p>立即发送所有待发送的键</p>
+   */
+  public synchronized void flush() {
+    while (!pending.isEmpty()) {
+      List<K> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+      for (Iterator<K> it = pending.iterator(); it.hasNext() && batch.size() < maxBatchSize; ) {
+        batch.add(it.next());
+        it.remove();
+      }
+      try {
+        transport.publish(encode(batch));
+      } catch (Throwable e) {
+        log.warn("发送缓存失效消息失败, channel: {}, 键数: {}", channel, batch.size(), e);
+      }
+    }
+  }
+
+  /**
+   * <p>发送剩余的键, 然后关闭消息通道; 不会关闭本地缓存</p>
+   */
+  @Override
+  public void close() {
+    flusher.shutdown();
+    flush();
+    transport.close();
+  }
+
+  private void enqueue(K key) {
+    if (pending.add(key) && pending.size() >= maxBatchSize) {
+      try {
+        flusher.execute(this::flush);
+      } catch (RuntimeException e) {
+        // 已关闭时由 close 负责发送剩余的键
+        log.debug("提交发送任务失败, channel: {}", channel, e);
+      }
+    }
+  }
+
+  private void receive(byte[] message) {
+    try {
+      List<K> keys = decode(message);
+      if (keys != null && !keys.isEmpty()) {
+        cache.invalidateAll(keys);
+      }
+    } catch (Throwable e) {
+      log.warn("处理缓存失效消息失败, channel: {}", channel, e);
+    }
+  }
+
+  /**
+   * <p>消息格式: 版本, 节点 ID, 通道名称, 键数, 每个键的长度和内容</p>
+   */
+  private byte[] encode(List<K> keys) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + keys.size() * 16);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeLong(nodeId.getMostSignificantBits());
+      out.writeLong(nodeId.getLeastSignificantBits());
+      out.writeUTF(channel);
+      out.writeInt(keys.size());
+      for (K key : keys) {
+        byte[] serialized = keySerializer.serialize(key);
+        out.writeInt(serialized.length);
+        out.write(serialized);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * <p>解码消息, 来自本节点或其他通道的消息返回 {@code null}; 键数和键的长度超出消息剩余的字节数时抛出异常,
+   * 不会按消息中的数值分配内存</p>
+   */
+  private List<K> decode(byte[] message) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        log.warn("不支持的缓存失效消息版本: {}, channel: {}", version, channel);
+        return null;
+      }
+      UUID origin = new UUID(in.readLong(), in.readLong());
+      if (nodeId.equals(origin) || !channel.equals(in.readUTF())) {
+        return null;
+      }
+      int count = in.readInt();
+      // 每个键至少占 4 字节的长度
+      if (count < 0 || count > in.available() / 4) {
+        throw new IOException("非法的键数: " + count);
+      }
+      List<K> keys = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+          throw new IOException("非法的键长度: " + length);
+        }
+        byte[] serialized = new byte[length];
+        in.readFully(serialized);
+        keys.add(keySerializer.deserialize(serialized));
+      }
+      return keys;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.github.codinghck.base.util.common.cache.invalidation;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * <p>{@link InvalidationBroadcaster} 使用的消息通道, 负责把失效消息发送给其他节点并接收其他节点的消息</p>
+ * <p>消息是已编码的字节数组, 通道只需要保证单条消息完整送达, 不需要理解其内容;
+ * 可以基于 TCP ({@link TcpInvalidationTransport}), 消息队列或 Redis 的发布订阅实现
+ *
+ * @author hck 2026-10-17 21:50
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+  /**
+   * <p>开始接收消息</p>
+   *
+   * @param receiver 收到其他节点的消息时的回调, 可能在通道内部的线程中被并发调用
+   * @throws IOException 启动失败时抛出
+   */
+  void start(Consumer<byte[]> receiver) throws IOException;
+
+  /**
+   * <p>把消息发送给所有其他节点</p>
+   *
+   * @param message 消息
+   * @throws IOException 发送失败时抛出, 部分节点可能已经收到
+   */
+  void publish(byte[] message) throws IOException;
+
+  /**
+   * <p>停止接收并释放连接</p>
+   */
+  @Override
+  void close();
+}
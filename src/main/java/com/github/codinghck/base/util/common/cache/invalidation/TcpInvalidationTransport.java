@@ -0,0 +1,423 @@
+package com.github.codinghck.base.util.common.cache.invalidation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * <p>基于 TCP 的 {@link InvalidationTransport} 参考实现, 每个节点监听一个端口, 并与配置的每个对端保持一条长连接,
+ * 通过 {@link #newBuilder()} 创建</p>
+ * <p>默认只监听本机回环地址, 监听其他地址需要通过 {@link TcpInvalidationTransportBuilder#bindAddress} 显式设置.
+ * 只接受来自对端所在主机的连接, 并且连接方需要用共享密钥完成 HMAC 应答; 两者都满足之前不读取任何消息.
+ * 消息没有加密, 只应在可信的内网中使用
+ * <p>消息按 "4 字节长度 + 内容" 分帧发送, 长度超过上限的连接被关闭. 到对端的连接由一个后台线程建立,
+ * 失败时按指数退避重试, 发送线程不会阻塞在连接上; 未连接的对端的消息直接丢弃, 不会补发.
+ * 接收连接的线程数不超过对端数的两倍. 适合节点固定的小规模集群, 也可以在同一台机器上用不同端口启动多个节点来测试:
+ * <pre>
+ *   TcpInvalidationTransport a = TcpInvalidationTransport.loopback(secret, 7001, 7002);
+ *   TcpInvalidationTransport b = TcpInvalidationTransport.loopback(secret, 7002, 7001);
+ * </pre>
+ *
+ * @author hck 2026-10-17 22:10
+ */
+@Slf4j
+@SuppressWarnings("unused")
+public class TcpInvalidationTransport implements InvalidationTransport {
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+  private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+  private static final long MIN_RECONNECT_DELAY_MILLIS = 100;
+  private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000;
+  private static final int MAGIC = 0x43494e56;
+  private static final int NONCE_BYTES = 32;
+  private static final int MAC_BYTES = 32;
+  private static final int ACCEPTED = 1;
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+
+  private final InetSocketAddress bindAddress;
+  private final List<Peer> peers = new ArrayList<>();
+  private final Set<InetAddress> allowedHosts = new HashSet<>();
+  private final SecretKeySpec secret;
+  private final int maxMessageBytes;
+  private final int maxConnections;
+  private final SecureRandom random = new SecureRandom();
+  private final Set<Socket> accepted = ConcurrentHashMap.newKeySet();
+  private volatile ServerSocket serverSocket;
+  private volatile ThreadPoolExecutor readers;
+  private volatile ScheduledExecutorService connector;
+  private volatile boolean closed;
+
+  TcpInvalidationTransport(TcpInvalidationTransportBuilder builder) {
+    this.bindAddress = new InetSocketAddress(builder.bindAddress, builder.port);
+    for (InetSocketAddress address : builder.peers) {
+      peers.add(new Peer(address));
+      allowedHosts.add(address.getAddress());
+    }
+    this.secret = new SecretKeySpec(builder.secret, MAC_ALGORITHM);
+    this.maxMessageBytes = builder.maxMessageBytes;
+    this.maxConnections = Math.max(2, peers.size() * 2);
+  }
+
+  /**
+   * <p>创建构建器</p>
+   *
+   * @return 构建器
+   */
+  public static TcpInvalidationTransportBuilder newBuilder() {
+    return new TcpInvalidationTransportBuilder();
+  }
+
+  /**
+   * <p>创建监听本机回环地址的实例, 对端也都在本机</p>
+   *
+   * @param secret 所有节点共用的密钥, 至少 16 字节
+   * @param port 本节点监听的端口
+   * @param peerPorts 其他节点监听的端口
+   * @return 实例
+   */
+  public static TcpInvalidationTransport loopback(byte[] secret, int port, int... peerPorts) {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    TcpInvalidationTransportBuilder builder = newBuilder().bindAddress(loopback).port(port).secret(secret);
+    for (int peerPort : peerPorts) {
+      builder.peer(new InetSocketAddress(loopback, peerPort));
+    }
+    return builder.build();
+  }
+
+  @Override
+  public synchronized void start(Consumer<byte[]> receiver) throws IOException {
+    Assert.notNull(receiver, "receiver 不能为 null");
+    Assert.state(serverSocket == null, "已经启动");
+    Assert.state(!closed, "已经关闭");
+    ServerSocket server = new ServerSocket();
+    server.setReuseAddress(true);
+    server.bind(bindAddress);
+    this.serverSocket = server;
+    String suffix = String.valueOf(server.getLocalPort());
+    this.readers = new ThreadPoolExecutor(0, maxConnections, 60L, TimeUnit.SECONDS,
+        new SynchronousQueue<>(), daemonFactory("cache-invalidation-read-" + suffix));
+    this.connector = Executors.newSingleThreadScheduledExecutor(daemonFactory("cache-invalidation-connect-" + suffix));
+    daemonFactory("cache-invalidation-accept-" + suffix).newThread(() -> accept(server, receiver)).start();
+    for (Peer peer : peers) {
+      peer.scheduleConnect(0L);
+    }
+  }
+
+  /**
+   * <p>把消息写入所有已连接的对端, 未连接的对端直接跳过, 由后台线程重连</p>
+   *
+   * @param message 消息
+   * @throws IOException 写入已连接的对端失败时抛出, 该连接被关闭并在后台重连
+   */
+  @Override
+  public void publish(byte[] message) throws IOException {
+    Assert.state(!closed, "已经关闭");
+    Assert.isTrue(message.length <= maxMessageBytes, "消息长度超过上限: " + message.length);
+    IOException failure = null;
+    for (Peer peer : peers) {
+      try {
+        peer.send(message);
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    closeQuietly(serverSocket);
+    for (Socket socket : accepted) {
+      closeQuietly(socket);
+    }
+    for (Peer peer : peers) {
+      peer.close();
+    }
+    if (connector != null) {
+      connector.shutdownNow();
+    }
+    if (readers != null) {
+      readers.shutdownNow();
+    }
+  }
+
+  /**
+   * <p>获取实际监听的端口, 绑定端口 0 时可以通过它获取系统分配的端口</p>
+   *
+   * @return 端口, 未启动时返回 -1
+   */
+  public int getLocalPort() {
+    ServerSocket server = serverSocket;
+    return server == null ? -1 : server.getLocalPort();
+  }
+
+  /**
+   * <p>获取当前已连接并通过认证的对端数</p>
+   *
+   * @return 对端数
+   */
+  public int connectedPeerCount() {
+    int count = 0;
+    for (Peer peer : peers) {
+      if (peer.isConnected()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void accept(ServerSocket server, Consumer<byte[]> receiver) {
+    while (!closed) {
+      Socket socket;
+      try {
+        socket = server.accept();
+      } catch (IOException e) {
+        if (!closed) {
+          log.warn("接受缓存失效连接失败, 地址: {}", bindAddress, e);
+        }
+        continue;
+      }
+      if (!allowedHosts.contains(socket.getInetAddress())) {
+        log.warn("拒绝来自非对端主机的缓存失效连接: {}", socket.getRemoteSocketAddress());
+        closeQuietly(socket);
+        continue;
+      }
+      try {
+        accepted.add(socket);
+        readers.execute(() -> read(socket, receiver));
+      } catch (RejectedExecutionException e) {
+        if (!closed) {
+          log.warn("缓存失效连接数已达上限 {}, 拒绝连接: {}", maxConnections, socket.getRemoteSocketAddress());
+        }
+        accepted.remove(socket);
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  private void read(Socket socket, Consumer<byte[]> receiver) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+      if (!authenticate(socket, in)) {
+        log.warn("缓存失效连接认证失败, 对端: {}", socket.getRemoteSocketAddress());
+        return;
+      }
+      while (!closed) {
+        int length = in.readInt();
+        if (length < 0 || length > maxMessageBytes) {
+          throw new IOException("非法的消息长度: " + length);
+        }
+        byte[] message = new byte[length];
+        in.readFully(message);
+        receiver.accept(message);
+      }
+    } catch (EOFException e) {
+      // 对端关闭了连接
+    } catch (IOException e) {
+      if (!closed) {
+        log.warn("读取缓存失效消息失败, 对端: {}", socket.getRemoteSocketAddress(), e);
+      }
+    } finally {
+      accepted.remove(socket);
+      closeQuietly(socket);
+    }
+  }
+
+  /**
+   * <p>接收方的认证: 发送随机数, 校验连接方用密钥计算的 HMAC, 通过后回复确认</p>
+   */
+  private boolean authenticate(Socket socket, DataInputStream in) throws IOException {
+    socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+    byte[] nonce = new byte[NONCE_BYTES];
+    random.nextBytes(nonce);
+    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+    out.writeInt(MAGIC);
+    out.write(nonce);
+    out.flush();
+    byte[] response = new byte[MAC_BYTES];
+    in.readFully(response);
+    if (!MessageDigest.isEqual(response, hmac(nonce))) {
+      return false;
+    }
+    out.writeByte(ACCEPTED);
+    out.flush();
+    socket.setSoTimeout(0);
+    return true;
+  }
+
+  private byte[] hmac(byte[] nonce) {
+    try {
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(secret);
+      return mac.doFinal(nonce);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("当前 JVM 不支持 " + MAC_ALGORITHM, e);
+    }
+  }
+
+  private static ThreadFactory daemonFactory(String name) {
+    return r -> {
+      Thread thread = new Thread(r, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        log.debug("关闭连接失败", e);
+      }
+    }
+  }
+
+  /**
+   * <p>到一个对端的出站连接, 发送时串行化; 连接和认证在 {@link #connector} 线程中完成</p>
+   */
+  private final class Peer {
+
+    private final InetSocketAddress address;
+    private Socket socket;
+    private DataOutputStream out;
+    private boolean connecting;
+    /**
+     * 下一次重连的等待时间, 只在连接线程中访问
+     */
+    private long reconnectDelay = MIN_RECONNECT_DELAY_MILLIS;
+
+    Peer(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    synchronized boolean isConnected() {
+      return out != null;
+    }
+
+    /**
+     * <p>写入消息, 未连接时丢弃</p>
+     */
+    synchronized void send(byte[] message) throws IOException {
+      if (out == null) {
+        log.debug("对端未连接, 丢弃缓存失效消息, 对端: {}", address);
+        return;
+      }
+      try {
+        out.writeInt(message.length);
+        out.write(message);
+        out.flush();
+      } catch (IOException e) {
+        disconnect();
+        scheduleConnect(0L);
+        throw e;
+      }
+    }
+
+    /**
+     * <p>在连接线程中安排一次连接, 已有连接或已在安排中时忽略</p>
+     */
+    synchronized void scheduleConnect(long delayMillis) {
+      if (closed || connecting || out != null) {
+        return;
+      }
+      connecting = true;
+      try {
+        connector.schedule(this::connect, delayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // 已关闭
+        connecting = false;
+      }
+    }
+
+    private void connect() {
+      Socket s = new Socket();
+      try {
+        s.setTcpNoDelay(true);
+        s.connect(address, CONNECT_TIMEOUT_MILLIS);
+        s.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        DataInputStream in = new DataInputStream(s.getInputStream());
+        DataOutputStream o = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        if (in.readInt() != MAGIC) {
+          throw new IOException("对端不是缓存失效节点");
+        }
+        byte[] nonce = new byte[NONCE_BYTES];
+        in.readFully(nonce);
+        o.write(hmac(nonce));
+        o.flush();
+        if (in.readByte() != ACCEPTED) {
+          throw new IOException("对端拒绝了认证");
+        }
+        s.setSoTimeout(0);
+        synchronized (this) {
+          connecting = false;
+          if (closed) {
+            closeQuietly(s);
+            return;
+          }
+          socket = s;
+          out = o;
+        }
+        reconnectDelay = MIN_RECONNECT_DELAY_MILLIS;
+        log.info("已连接缓存失效对端: {}", address);
+      } catch (IOException e) {
+        closeQuietly(s);
+        if (reconnectDelay == MIN_RECONNECT_DELAY_MILLIS) {
+          log.warn("连接缓存失效对端失败, 重连成功前发往该对端的消息将被丢弃, 对端: {}", address, e);
+        } else {
+          log.debug("重连缓存失效对端失败, 对端: {}", address, e);
+        }
+        long delay = reconnectDelay;
+        reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+        synchronized (this) {
+          connecting = false;
+          scheduleConnect(delay);
+        }
+      }
+    }
+
+    private void disconnect() {
+      closeQuietly(socket);
+      socket = null;
+      out = null;
+    }
+
+    synchronized void close() {
+      disconnect();
+    }
+  }
+}
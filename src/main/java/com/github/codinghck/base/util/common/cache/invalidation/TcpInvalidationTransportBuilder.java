@@ -0,0 +1,121 @@
+package com.github.codinghck.base.util.common.cache.invalidation;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.util.Assert;
+
+/**
+ * <p>{@link TcpInvalidationTransport} 的构建器, 默认只监听本机回环地址</p>
+ * <pre>
+ *   TcpInvalidationTransport transport = TcpInvalidationTransport.newBuilder()
+ *       .bindAddress(InetAddress.getByName("10.0.0.1"))
+ *       .port(7001)
+ *       .peer("10.0.0.2", 7001)
+ *       .peer("10.0.0.3", 7001)
+ *       .secret(secret)
+ *       .build();
+ * </pre>
+ *
+ * @author hck 2026-10-18 04:50
+ */
+@SuppressWarnings("unused")
+public final class TcpInvalidationTransportBuilder {
+
+  static final int MIN_SECRET_BYTES = 16;
+  static final int DEFAULT_MAX_MESSAGE_BYTES = 1 << 20;
+
+  InetAddress bindAddress = InetAddress.getLoopbackAddress();
+  int port;
+  final List<InetSocketAddress> peers = new ArrayList<>();
+  byte[] secret;
+  int maxMessageBytes = DEFAULT_MAX_MESSAGE_BYTES;
+
+  TcpInvalidationTransportBuilder() {}
+
+  /**
+   * <p>设置监听的地址, 默认只监听本机回环地址; 其他节点不在本机时需要显式设置为对外的网卡地址</p>
+   *
+   * @param bindAddress 监听的地址
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder bindAddress(InetAddress bindAddress) {
+    Assert.notNull(bindAddress, "bindAddress 不能为 null");
+    this.bindAddress = bindAddress;
+    return this;
+  }
+
+  /**
+   * <p>设置监听的端口</p>
+   *
+   * @param port 端口, 为 0 时由系统分配, 见 {@link TcpInvalidationTransport#getLocalPort()}
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder port(int port) {
+    Assert.isTrue(port >= 0 && port <= 0xFFFF, "端口必须在 0 到 65535 之间");
+    this.port = port;
+    return this;
+  }
+
+  /**
+   * <p>添加一个对端, 消息会发送给所有对端; 只接受来自对端所在主机的连接</p>
+   *
+   * @param address 对端监听的地址, 需要已经解析
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder peer(InetSocketAddress address) {
+    Assert.notNull(address, "对端地址不能为 null");
+    Assert.isTrue(!address.isUnresolved(), "无法解析对端地址: " + address);
+    peers.add(address);
+    return this;
+  }
+
+  /**
+   * <p>添加一个对端, 见 {@link #peer(InetSocketAddress)}</p>
+   *
+   * @param host 对端的主机名或地址
+   * @param port 对端监听的端口
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder peer(String host, int port) {
+    return peer(new InetSocketAddress(host, port));
+  }
+
+  /**
+   * <p>设置所有节点共用的密钥, 必须设置. 建立连接时接收方发送随机数, 连接方用密钥计算 HMAC-SHA256 作为应答,
+   * 应答不正确的连接被关闭. 密钥不会在网络上传输, 但消息本身没有加密</p>
+   *
+   * @param secret 密钥, 至少 16 字节
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder secret(byte[] secret) {
+    Assert.notNull(secret, "secret 不能为 null");
+    Assert.isTrue(secret.length >= MIN_SECRET_BYTES, "密钥至少 " + MIN_SECRET_BYTES + " 字节");
+    this.secret = Arrays.copyOf(secret, secret.length);
+    return this;
+  }
+
+  /**
+   * <p>设置单条消息的最大字节数, 收到更长的消息时关闭连接</p>
+   *
+   * @param maxMessageBytes 最大字节数, 默认 1MB
+   * @return 当前构建器
+   */
+  public TcpInvalidationTransportBuilder maxMessageBytes(int maxMessageBytes) {
+    Assert.isTrue(maxMessageBytes > 0, "最大消息长度必须大于 0");
+    this.maxMessageBytes = maxMessageBytes;
+    return this;
+  }
+
+  /**
+   * <p>创建实例, 调用 {@link TcpInvalidationTransport#start} 后才开始监听和连接对端</p>
+   *
+   * @return 实例
+   */
+  public TcpInvalidationTransport build() {
+    Assert.state(secret != null, "必须设置 secret");
+    return new TcpInvalidationTransport(this);
+  }
+}
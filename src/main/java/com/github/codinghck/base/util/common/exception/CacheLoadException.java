@@ -0,0 +1,25 @@
+package com.github.codinghck.base.util.common.exception;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author hck 2026-10-17 13:24
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@SuppressWarnings("unused")
+public class CacheLoadException extends RuntimeException {
+
+  private static final long serialVersionUID = -5043000680954387921L;
+
+  public CacheLoadException(String message) {
+    super(message);
+  }
+
+  public CacheLoadException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
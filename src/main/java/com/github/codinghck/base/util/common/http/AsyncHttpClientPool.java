@@ -0,0 +1,182 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.springframework.util.Assert;
+
+/**
+ * <p>基于非阻塞 IO 的共用 {@code HttpAsyncClient}, 少量 IO 线程通过 selector 处理所有连接,
+ * 同时进行中的请求数不受线程数限制, 只受连接池大小限制</p>
+ * <p>连接池和连接保持的配置与 {@link HttpClientPool} 相同. 响应完成的回调在 IO 线程中执行,
+ * 回调中不能有阻塞操作, 否则会拖慢同一个 IO 线程上的所有连接
+ * <p>所有线程都是守护线程, 共用的默认连接池不会阻止 JVM 退出
+ *
+ * @author hck 2026-10-17 23:10
+ */
+@Slf4j
+@SuppressWarnings("unused")
+public class AsyncHttpClientPool implements Closeable {
+
+  public static final int DEFAULT_IO_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+  public static final int DEFAULT_MAX_TOTAL = 1000;
+  public static final int DEFAULT_MAX_PER_ROUTE = 200;
+
+  private static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+  private static final long EVICT_INTERVAL_MILLIS = 5000;
+  private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+  private static final class Holder {
+    static final AsyncHttpClientPool INSTANCE = new AsyncHttpClientPool();
+  }
+
+  private final PoolingNHttpClientConnectionManager connectionManager;
+  private final CloseableHttpAsyncClient client;
+  private final ScheduledExecutorService evictor;
+  private final long idleTimeoutMillis;
+
+  /**
+   * <p>使用默认配置创建连接池</p>
+   */
+  public AsyncHttpClientPool() {
+    this(DEFAULT_IO_THREADS, DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE,
+        HttpClientPool.DEFAULT_IDLE_TIMEOUT_MILLIS, HttpClientPool.DEFAULT_KEEP_ALIVE_MILLIS);
+  }
+
+  /**
+   * @param ioThreads IO 线程数
+   * @param maxTotal 最大总连接数
+   * @param maxPerRoute 每个路由的默认最大连接数
+   * @param idleTimeoutMillis 空闲连接的最长保留毫秒数
+   * @param keepAliveMillis 服务端没有指定时连接的最长保持毫秒数
+   */
+  public AsyncHttpClientPool(int ioThreads, int maxTotal, int maxPerRoute, long idleTimeoutMillis,
+      long keepAliveMillis) {
+    Assert.isTrue(ioThreads > 0, "IO 线程数必须大于 0");
+    Assert.isTrue(maxTotal > 0, "最大总连接数必须大于 0");
+    Assert.isTrue(maxPerRoute > 0 && maxPerRoute <= maxTotal, "每个路由的最大连接数必须大于 0 且不超过最大总连接数");
+    Assert.isTrue(idleTimeoutMillis > 0, "空闲时间必须大于 0");
+    Assert.isTrue(keepAliveMillis > 0, "保持时间必须大于 0");
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    String namePrefix = "http-async-" + POOL_NUMBER.getAndIncrement() + "-";
+    IOReactorConfig reactorConfig = IOReactorConfig.custom()
+        .setIoThreadCount(ioThreads)
+        .setConnectTimeout(DEFAULT_TIMEOUT_MILLIS)
+        .setSoTimeout(DEFAULT_TIMEOUT_MILLIS)
+        .setTcpNoDelay(true)
+        .build();
+    try {
+      this.connectionManager = new PoolingNHttpClientConnectionManager(
+          new DefaultConnectingIOReactor(reactorConfig, daemonThreadFactory(namePrefix + "io-")));
+    } catch (IOReactorException e) {
+      throw new UncheckedIOException("创建 IO reactor 失败", e);
+    }
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    this.client = HttpAsyncClients.custom()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy(keepAliveStrategy(keepAliveMillis))
+        .setDefaultRequestConfig(HttpUtils.getReqTimeoutConf(DEFAULT_TIMEOUT_MILLIS))
+        .setThreadFactory(daemonThreadFactory(namePrefix + "reactor-"))
+        .build();
+    client.start();
+    this.evictor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory(namePrefix + "idle-evictor-"));
+    evictor.scheduleWithFixedDelay(this::evictIdle,
+        EVICT_INTERVAL_MILLIS, EVICT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * <p>获取共用的默认连接池, 第一次调用时创建并启动 IO 线程, {@link HttpUtils} 的异步方法默认使用它</p>
+   *
+   * @return 默认连接池
+   */
+  public static AsyncHttpClientPool getDefault() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * <p>获取已启动的 {@code HttpAsyncClient}, 所有调用方共用, 不要关闭</p>
+   *
+   * @return {@code HttpAsyncClient}
+   */
+  public CloseableHttpAsyncClient getClient() {
+    return client;
+  }
+
+  /**
+   * <p>单独设置访问某个主机的最大连接数</p>
+   *
+   * @param host 主机
+   * @param max 最大连接数
+   */
+  public void setMaxPerRoute(HttpHost host, int max) {
+    Assert.notNull(host, "host 不能为 null");
+    Assert.isTrue(max > 0, "最大连接数必须大于 0");
+    connectionManager.setMaxPerRoute(new HttpRoute(host), max);
+  }
+
+  /**
+   * <p>获取连接池当前的使用情况</p>
+   *
+   * @return 租用中, 空闲, 等待中的连接数和最大连接数
+   */
+  public PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * <p>关闭过期的连接和空闲时间过长的连接, 由守护线程定期调用</p>
+   */
+  public void evictIdle() {
+    try {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      log.warn("关闭空闲连接失败", e);
+    }
+  }
+
+  /**
+   * <p>停止清理线程和 IO 线程, 并关闭所有连接, 进行中的请求以失败结束</p>
+   *
+   * @throws IOException 关闭时发生 IO 异常时抛出
+   */
+  @Override
+  public void close() throws IOException {
+    evictor.shutdownNow();
+    client.close();
+  }
+
+  private static ThreadFactory daemonThreadFactory(String namePrefix) {
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    return r -> {
+      Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  private static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+    return (response, context) -> {
+      long serverMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      return serverMillis > 0 ? Math.min(serverMillis, keepAliveMillis) : keepAliveMillis;
+    };
+  }
+}
@@ -0,0 +1,22 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.IOException;
+
+/**
+ * <p>逐块处理响应内容, 见 {@link HttpUtils#doGetInChunks(String, int, ChunkConsumer)}</p>
+ *
+ * @author hck 2026-10-17 23:40
+ */
+@FunctionalInterface
+public interface ChunkConsumer {
+
+  /**
+   * <p>处理一块响应内容</p>
+   * <p>每次调用传入的是同一个缓冲区, 方法返回后其内容会被下一块覆盖, 需要保留时自行复制
+   *
+   * @param buffer 缓冲区
+   * @param length 本次读到的字节数, 有效内容为 {@code buffer[0, length)}
+   * @throws IOException 处理失败时抛出, 会中止读取
+   */
+  void accept(byte[] buffer, int length) throws IOException;
+}
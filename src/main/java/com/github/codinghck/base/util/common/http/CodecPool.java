@@ -0,0 +1,278 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+import org.apache.http.client.entity.InputStreamFactory;
+
+/**
+ * <p>gzip 和 deflate 内容编码的压缩与解压, 复用 {@link Deflater} 和 {@link Inflater}</p>
+ * <p>{@code Deflater} 和 {@code Inflater} 持有较大的本地内存, 创建和回收的开销远大于压缩少量数据本身,
+ * {@code GZIPInputStream} 等标准实现每次都会新建. 这里用有界队列缓存用完的实例, 队列已满时直接释放
+ *
+ * @author hck 2026-10-18 00:40
+ */
+final class CodecPool {
+
+  static final String GZIP = "gzip";
+  static final String X_GZIP = "x-gzip";
+  static final String DEFLATE = "deflate";
+
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+  private static final int BUFFER_SIZE = 4096;
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+  private static final BlockingQueue<Inflater> RAW_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+  private static final BlockingQueue<Inflater> ZLIB_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+  private static final Map<String, InputStreamFactory> DECODERS;
+
+  static {
+    Map<String, InputStreamFactory> decoders = new LinkedHashMap<>();
+    decoders.put(GZIP, CodecPool::gunzip);
+    decoders.put(X_GZIP, CodecPool::gunzip);
+    decoders.put(DEFLATE, CodecPool::inflate);
+    DECODERS = Collections.unmodifiableMap(decoders);
+  }
+
+  private CodecPool() {}
+
+  /**
+   * <p>按内容编码名称 (小写) 索引的解码方式, 可用于 {@code HttpClientBuilder#setContentDecoderRegistry}</p>
+   *
+   * @return 不可修改的解码方式
+   */
+  static Map<String, InputStreamFactory> decoders() {
+    return DECODERS;
+  }
+
+  /**
+   * <p>把数据压缩为 gzip 格式</p>
+   *
+   * @param data 原始数据
+   * @return gzip 格式的数据
+   */
+  static byte[] gzip(byte[] data) {
+    Deflater deflater = DEFLATERS.poll();
+    if (deflater == null) {
+      deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, data.length / 4));
+      out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buffer);
+        out.write(buffer, 0, n);
+      }
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, data.length);
+      writeIntLe(out, (int) crc.getValue());
+      writeIntLe(out, data.length);
+      return out.toByteArray();
+    } finally {
+      releaseDeflater(deflater);
+    }
+  }
+
+  /**
+   * <p>解压 gzip 格式的输入流, 读到末尾时校验 CRC 和长度</p>
+   *
+   * @param in gzip 格式的输入流
+   * @return 解压后的输入流, 关闭时归还 {@code Inflater}
+   * @throws IOException 读取头部失败或者不是 gzip 格式时抛出
+   */
+  static InputStream gunzip(InputStream in) throws IOException {
+    readGzipHeader(in);
+    return new GzipInflaterStream(in, inflater(RAW_INFLATERS, true));
+  }
+
+  /**
+   * <p>解压 deflate 格式的输入流, 兼容带 zlib 头部和不带头部的原始 deflate 数据</p>
+   *
+   * @param in deflate 格式的输入流
+   * @return 解压后的输入流, 关闭时归还 {@code Inflater}
+   * @throws IOException 读取失败时抛出
+   */
+  static InputStream inflate(InputStream in) throws IOException {
+    PushbackInputStream pushback = new PushbackInputStream(in, 2);
+    byte[] head = new byte[2];
+    int n = 0;
+    int l;
+    while (n < head.length && (l = pushback.read(head, n, head.length - n)) != -1) {
+      n += l;
+    }
+    pushback.unread(head, 0, n);
+    if (n == head.length && isZlibHeader(head[0] & 0xff, head[1] & 0xff)) {
+      return new PooledInflaterStream(pushback, inflater(ZLIB_INFLATERS, false), ZLIB_INFLATERS);
+    }
+    return new PooledInflaterStream(pushback, inflater(RAW_INFLATERS, true), RAW_INFLATERS);
+  }
+
+  private static boolean isZlibHeader(int cmf, int flg) {
+    return (cmf & 0x0f) == Deflater.DEFLATED && ((cmf << 8) | flg) % 31 == 0;
+  }
+
+  private static Inflater inflater(BlockingQueue<Inflater> pool, boolean nowrap) {
+    Inflater inflater = pool.poll();
+    return inflater != null ? inflater : new Inflater(nowrap);
+  }
+
+  private static void releaseDeflater(Deflater deflater) {
+    deflater.reset();
+    if (!DEFLATERS.offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  private static void releaseInflater(BlockingQueue<Inflater> pool, Inflater inflater) {
+    inflater.reset();
+    if (!pool.offer(inflater)) {
+      inflater.end();
+    }
+  }
+
+  private static void readGzipHeader(InputStream in) throws IOException {
+    if (readUnsignedShortLe(in) != GZIP_MAGIC) {
+      throw new ZipException("不是 gzip 格式");
+    }
+    if (readUnsignedByte(in) != Deflater.DEFLATED) {
+      throw new ZipException("不支持的 gzip 压缩方法");
+    }
+    int flags = readUnsignedByte(in);
+    // 修改时间 4 字节, 额外标志和操作系统各 1 字节
+    skipFully(in, 6);
+    if ((flags & FEXTRA) != 0) {
+      skipFully(in, readUnsignedShortLe(in));
+    }
+    if ((flags & FNAME) != 0) {
+      skipZeroTerminated(in);
+    }
+    if ((flags & FCOMMENT) != 0) {
+      skipZeroTerminated(in);
+    }
+    if ((flags & FHCRC) != 0) {
+      skipFully(in, 2);
+    }
+  }
+
+  private static int readUnsignedByte(InputStream in) throws IOException {
+    int b = in.read();
+    if (b == -1) {
+      throw new EOFException("gzip 头部不完整");
+    }
+    return b;
+  }
+
+  private static int readUnsignedShortLe(InputStream in) throws IOException {
+    return readUnsignedByte(in) | (readUnsignedByte(in) << 8);
+  }
+
+  private static void skipFully(InputStream in, int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      readUnsignedByte(in);
+    }
+  }
+
+  private static void skipZeroTerminated(InputStream in) throws IOException {
+    while (readUnsignedByte(in) != 0) {
+      // 跳过文件名或注释
+    }
+  }
+
+  private static void writeIntLe(ByteArrayOutputStream out, int v) {
+    out.write(v);
+    out.write(v >>> 8);
+    out.write(v >>> 16);
+    out.write(v >>> 24);
+  }
+
+  /**
+   * <p>关闭时把 {@code Inflater} 归还到池中, 而不是释放</p>
+   */
+  private static class PooledInflaterStream extends InflaterInputStream {
+
+    private final BlockingQueue<Inflater> pool;
+    private boolean released;
+
+    PooledInflaterStream(InputStream in, Inflater inflater, BlockingQueue<Inflater> pool) {
+      super(in, inflater, BUFFER_SIZE);
+      this.pool = pool;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        if (!released) {
+          released = true;
+          releaseInflater(pool, inf);
+        }
+      }
+    }
+  }
+
+  /**
+   * <p>解压 gzip 数据部分, 读到末尾时用 8 字节的尾部校验 CRC 和原始长度; 只处理第一个 gzip 成员</p>
+   */
+  private static final class GzipInflaterStream extends PooledInflaterStream {
+
+    private final CRC32 crc = new CRC32();
+    private boolean trailerChecked;
+
+    GzipInflaterStream(InputStream in, Inflater inflater) {
+      super(in, inflater, RAW_INFLATERS);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        crc.update(b, off, n);
+      } else if (n == -1 && !trailerChecked) {
+        trailerChecked = true;
+        checkTrailer();
+      }
+      return n;
+    }
+
+    private void checkTrailer() throws IOException {
+      byte[] trailer = new byte[8];
+      int remaining = Math.min(inf.getRemaining(), trailer.length);
+      System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+      for (int i = remaining; i < trailer.length; i++) {
+        trailer[i] = (byte) readUnsignedByte(in);
+      }
+      long expectedCrc = readUintLe(trailer, 0);
+      long expectedSize = readUintLe(trailer, 4);
+      if (expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xffffffffL)) {
+        throw new ZipException("gzip 校验失败");
+      }
+    }
+
+    private static long readUintLe(byte[] b, int off) {
+      return (b[off] & 0xffL) | (b[off + 1] & 0xffL) << 8 | (b[off + 2] & 0xffL) << 16 | (b[off + 3] & 0xffL) << 24;
+    }
+  }
+}
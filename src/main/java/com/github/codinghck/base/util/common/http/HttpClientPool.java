@@ -0,0 +1,167 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.util.Assert;
+
+/**
+ * <p>共用连接池的 {@code HttpClient}, 同一个地址的请求复用已建立的 TCP (和 TLS) 连接,
+ * 不再为每次请求建立和关闭连接</p>
+ * <p>连接池限制总连接数和每个路由 (协议 + 主机 + 端口) 的连接数, 连接用完时请求等待空闲连接,
+ * 最长等待时间为请求配置中的 {@code connectionRequestTimeout}. 服务端没有通过 {@code Keep-Alive}
+ * 响应头指定保持时间时, 连接最多保持 {@code keepAliveMillis} 毫秒; 一个守护线程定期关闭过期的连接,
+ * 以及空闲超过 {@code idleTimeoutMillis} 毫秒的连接
+ * <p>请求自动带上 {@code Accept-Encoding: deflate, gzip, x-gzip}, 压缩的响应在读取时自动解压,
+ * 解压使用 {@link CodecPool} 中复用的 {@code Inflater}
+ * <p>使用 {@link #getClient()} 执行请求时, 需要读完响应内容或者关闭响应, 连接才会回到连接池;
+ * 不要关闭 {@code HttpClient} 本身
+ *
+ * @author hck 2026-10-17 22:40
+ */
+@Slf4j
+@SuppressWarnings("unused")
+public class HttpClientPool implements Closeable {
+
+  public static final int DEFAULT_MAX_TOTAL = 200;
+  public static final int DEFAULT_MAX_PER_ROUTE = 50;
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+  private static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+  private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+  private static final long EVICT_INTERVAL_MILLIS = 5000;
+  private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+  private static final class Holder {
+    static final HttpClientPool INSTANCE = new HttpClientPool();
+  }
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient client;
+  private final ScheduledExecutorService evictor;
+  private final long idleTimeoutMillis;
+
+  /**
+   * <p>使用默认配置创建连接池</p>
+   */
+  public HttpClientPool() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_KEEP_ALIVE_MILLIS);
+  }
+
+  /**
+   * @param maxTotal 最大总连接数
+   * @param maxPerRoute 每个路由的默认最大连接数
+   * @param idleTimeoutMillis 空闲连接的最长保留毫秒数
+   * @param keepAliveMillis 服务端没有指定时连接的最长保持毫秒数
+   */
+  public HttpClientPool(int maxTotal, int maxPerRoute, long idleTimeoutMillis, long keepAliveMillis) {
+    Assert.isTrue(maxTotal > 0, "最大总连接数必须大于 0");
+    Assert.isTrue(maxPerRoute > 0 && maxPerRoute <= maxTotal, "每个路由的最大连接数必须大于 0 且不超过最大总连接数");
+    Assert.isTrue(idleTimeoutMillis > 0, "空闲时间必须大于 0");
+    Assert.isTrue(keepAliveMillis > 0, "保持时间必须大于 0");
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+    this.client = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy(keepAliveStrategy(keepAliveMillis))
+        .setContentDecoderRegistry(CodecPool.decoders())
+        .setDefaultRequestConfig(HttpUtils.getReqTimeoutConf(DEFAULT_TIMEOUT_MILLIS))
+        .build();
+    String name = "http-idle-evictor-" + POOL_NUMBER.getAndIncrement();
+    this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, name);
+      t.setDaemon(true);
+      return t;
+    });
+    evictor.scheduleWithFixedDelay(this::evictIdle,
+        EVICT_INTERVAL_MILLIS, EVICT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * <p>获取共用的默认连接池, 第一次调用时创建, {@link HttpUtils} 默认使用它</p>
+   *
+   * @return 默认连接池
+   */
+  public static HttpClientPool getDefault() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * <p>获取使用连接池的 {@code HttpClient}, 所有调用方共用, 不要关闭</p>
+   *
+   * @return {@code HttpClient}
+   */
+  public CloseableHttpClient getClient() {
+    return client;
+  }
+
+  /**
+   * <p>单独设置访问某个主机的最大连接数</p>
+   *
+   * @param host 主机, 例如 {@code new HttpHost("api.example.com", 443, "https")}
+   * @param max 最大连接数
+   */
+  public void setMaxPerRoute(HttpHost host, int max) {
+    Assert.notNull(host, "host 不能为 null");
+    Assert.isTrue(max > 0, "最大连接数必须大于 0");
+    connectionManager.setMaxPerRoute(new HttpRoute(host), max);
+  }
+
+  /**
+   * <p>获取连接池当前的使用情况</p>
+   *
+   * @return 租用中, 空闲, 等待中的连接数和最大连接数
+   */
+  public PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * <p>关闭过期的连接和空闲时间过长的连接, 由守护线程定期调用</p>
+   */
+  public void evictIdle() {
+    try {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      log.warn("关闭空闲连接失败", e);
+    }
+  }
+
+  /**
+   * <p>停止清理线程并关闭所有连接</p>
+   *
+   * @throws IOException 关闭连接时发生 IO 异常时抛出
+   */
+  @Override
+  public void close() throws IOException {
+    evictor.shutdownNow();
+    client.close();
+  }
+
+  /**
+   * <p>优先使用服务端在 {@code Keep-Alive} 响应头中指定的保持时间, 但不超过 {@code keepAliveMillis}</p>
+   */
+  private static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+    return (response, context) -> {
+      long serverMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      return serverMillis > 0 ? Math.min(serverMillis, keepAliveMillis) : keepAliveMillis;
+    };
+  }
+}
@@ -1,25 +1,46 @@
 package com.github.codinghck.base.util.common.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import net.sf.json.JSONObject;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
+import org.apache.http.ParseException;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DecompressingEntity;
+import org.apache.http.client.entity.InputStreamFactory;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.CharArrayBuffer;
 import org.apache.http.util.EntityUtils;
@@ -27,6 +48,16 @@ import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
+ * <p>所有请求通过共用的 {@link HttpClientPool} 发送, 连接在请求之间复用; 默认使用
+ * {@link HttpClientPool#getDefault()}, 需要调整连接数等配置时通过 {@link #setClientPool(HttpClientPool)} 替换
+ * <p>{@code xxxAsync} 方法通过 {@link AsyncHttpClientPool} 以非阻塞 IO 发送请求, 不占用调用线程;
+ * 返回的 {@code CompletableFuture} 在 IO 线程中完成, 后续的阻塞操作应使用 {@code thenApplyAsync} 等方法切换到其他线程池
+ * <p>响应内容较大时使用 {@link #doGetAsStream(String, StreamHandler)}, {@link #doGetAsReader(String, ReaderHandler)}
+ * 或 {@link #doGetInChunks(String, int, ChunkConsumer)} 边读边处理, 内存占用与响应大小无关;
+ * 下载文件使用 {@link #downloadTo(String, Path)}
+ * <p>压缩的响应 (gzip, deflate) 自动解压; 调用 {@link #enableRequestCompression(int)} 后,
+ * 超过阈值的 json 请求体以 gzip 压缩后发送, 需要服务端支持 {@code Content-Encoding: gzip} 的请求
+ *
  * @author hck 2018/11/18 9:53 PM
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
@@ -46,6 +77,83 @@ public class HttpUtils {
   private static final int MAX_ENTITY_LENGTH = 2048;
   private static final int SUCCESS_STATUS_CODE = 200;
   private static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+  private static final int DEFAULT_CHUNK_SIZE = 8192;
+  private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+  private static final String BYTES_UNIT = "bytes";
+  private static final String UNKNOWN_RANGE = "*";
+  private static final String ACCEPT_ENCODING_IDENTITY = "identity";
+  private static final String ACCEPT_ENCODING_COMPRESSED = CodecPool.GZIP + ", " + CodecPool.DEFLATE;
+  private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+  private static final int DISABLED = -1;
+
+  private static volatile HttpClientPool clientPool;
+  private static volatile AsyncHttpClientPool asyncClientPool;
+  private static volatile int requestCompressionThreshold = DISABLED;
+
+  /**
+   * <p>开启 json 请求体压缩, 超过 1024 字节的请求体以 gzip 压缩后发送</p>
+   */
+  public static void enableRequestCompression() {
+    enableRequestCompression(DEFAULT_COMPRESSION_THRESHOLD);
+  }
+
+  /**
+   * <p>开启 json 请求体压缩, 不小于 {@code thresholdBytes} 字节 (UTF-8 编码后) 的请求体以 gzip 压缩后发送;
+   * 较小的请求体压缩后节省的流量有限, 不值得压缩的开销</p>
+   *
+   * @param thresholdBytes 压缩阈值字节数
+   */
+  public static void enableRequestCompression(int thresholdBytes) {
+    Assert.isTrue(thresholdBytes >= 0, "压缩阈值不能小于 0");
+    requestCompressionThreshold = thresholdBytes;
+  }
+
+  /**
+   * <p>关闭 json 请求体压缩, 默认关闭</p>
+   */
+  public static void disableRequestCompression() {
+    requestCompressionThreshold = DISABLED;
+  }
+
+  /**
+   * <p>设置发送请求使用的连接池, 之前使用的连接池不会被关闭</p>
+   *
+   * @param clientPool 连接池
+   */
+  public static void setClientPool(HttpClientPool clientPool) {
+    Assert.notNull(clientPool, "clientPool 不能为 null");
+    HttpUtils.clientPool = clientPool;
+  }
+
+  /**
+   * <p>获取发送请求使用的连接池, 没有设置时返回 {@link HttpClientPool#getDefault()}</p>
+   *
+   * @return 连接池
+   */
+  public static HttpClientPool getClientPool() {
+    HttpClientPool pool = clientPool;
+    return pool != null ? pool : HttpClientPool.getDefault();
+  }
+
+  /**
+   * <p>设置异步请求使用的连接池, 之前使用的连接池不会被关闭</p>
+   *
+   * @param asyncClientPool 连接池
+   */
+  public static void setAsyncClientPool(AsyncHttpClientPool asyncClientPool) {
+    Assert.notNull(asyncClientPool, "asyncClientPool 不能为 null");
+    HttpUtils.asyncClientPool = asyncClientPool;
+  }
+
+  /**
+   * <p>获取异步请求使用的连接池, 没有设置时返回 {@link AsyncHttpClientPool#getDefault()}</p>
+   *
+   * @return 连接池
+   */
+  public static AsyncHttpClientPool getAsyncClientPool() {
+    AsyncHttpClientPool pool = asyncClientPool;
+    return pool != null ? pool : AsyncHttpClientPool.getDefault();
+  }
 
   /**
    * <p>get请求, 参数放在map里</p>
@@ -92,17 +200,7 @@ public class HttpUtils {
    * @throws IOException 执行失败抛出异常
    */
   public static String doGet(String url, int millis) throws IOException {
-    CloseableHttpClient httpClient = HttpClients.createDefault();
-    CloseableHttpResponse response = null;
-    try {
-      HttpGet get = new HttpGet(url);
-      get.setConfig(getReqTimeoutConf(millis > 0 ? millis : DEFAULT_TIMEOUT_MILLIS));
-      response = httpClient.execute(get);
-      HttpEntity res = response.getEntity();
-      return entityToString(res);
-    } finally {
-      closeConn(httpClient, response);
-    }
+    return executeForEntity(timedGet(url, millis), HttpUtils::entityToString);
   }
 
   /**
@@ -152,12 +250,7 @@ public class HttpUtils {
    * @throws IOException 执行失败抛出异常
    */
   public static String postJson(String url, String body, int millis) throws IOException {
-    HttpPost post = new HttpPost(url);
-    post.addHeader(CONTENT_TYPE, JSON_POST_CONTENT_TYPE);
-    post.setHeader(ACCEPT, JSON_POST_ACCEPT);
-    post.setEntity(getJsonBodyStringEntity(body));
-    post.setConfig(getReqTimeoutConf(millis > 0 ? millis : DEFAULT_TIMEOUT_MILLIS));
-    return doPost(post);
+    return doPost(jsonPost(url, body, millis));
   }
 
   /**
@@ -167,17 +260,265 @@ public class HttpUtils {
    * @throws IOException 请求发生 IO 异常时抛出
    */
   public static String doPost(HttpPost post) throws IOException {
-    CloseableHttpClient httpClient = HttpClients.createDefault();
+    return executeForEntity(post, HttpUtils::entityToString);
+  }
+
+  /**
+   * <p>get 请求, 以输入流的方式处理响应内容, 不把响应读入内存</p>
+   *
+   * @param url 请求地址加参数
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T doGetAsStream(String url, StreamHandler<T> handler) throws IOException {
+    return doGetAsStream(url, -1, handler);
+  }
+
+  /**
+   * <p>get 请求, 以输入流的方式处理响应内容, 不把响应读入内存</p>
+   *
+   * @param url 请求地址加参数
+   * @param millis 超时时间, 对读取响应内容时的每次读操作分别生效
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T doGetAsStream(String url, int millis, StreamHandler<T> handler) throws IOException {
+    return execute(timedGet(url, millis), handler);
+  }
+
+  /**
+   * <p>get 请求, 以字符流的方式处理响应内容, 按响应声明的字符集解码, 没有声明时使用 UTF-8</p>
+   *
+   * @param url 请求地址加参数
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T doGetAsReader(String url, ReaderHandler<T> handler) throws IOException {
+    return doGetAsReader(url, -1, handler);
+  }
+
+  /**
+   * <p>get 请求, 以字符流的方式处理响应内容, 按响应声明的字符集解码, 没有声明时使用 UTF-8</p>
+   *
+   * @param url 请求地址加参数
+   * @param millis 超时时间
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T doGetAsReader(String url, int millis, ReaderHandler<T> handler) throws IOException {
+    Assert.notNull(handler, "handler 不能为 null");
+    return executeForEntity(timedGet(url, millis), entity -> {
+      try (InputStreamReader reader = new InputStreamReader(contentOf(entity), charsetOf(entity))) {
+        return handler.handle(reader);
+      }
+    });
+  }
+
+  /**
+   * <p>get 请求, 用一个固定大小的缓冲区逐块读取响应内容并交给 {@code consumer} 处理</p>
+   *
+   * @param url 请求地址加参数
+   * @param consumer 每块内容的处理方式
+   * @return 读取的总字节数
+   * @throws IOException 执行失败抛出异常
+   */
+  public static long doGetInChunks(String url, ChunkConsumer consumer) throws IOException {
+    return doGetInChunks(url, DEFAULT_CHUNK_SIZE, consumer);
+  }
+
+  /**
+   * <p>get 请求, 用一个固定大小的缓冲区逐块读取响应内容并交给 {@code consumer} 处理</p>
+   *
+   * @param url 请求地址加参数
+   * @param chunkSize 缓冲区大小, 也是单次回调的最大字节数
+   * @param consumer 每块内容的处理方式
+   * @return 读取的总字节数
+   * @throws IOException 执行失败抛出异常
+   */
+  public static long doGetInChunks(String url, int chunkSize, ChunkConsumer consumer) throws IOException {
+    return doGetInChunks(url, -1, chunkSize, consumer);
+  }
+
+  /**
+   * <p>get 请求, 用一个固定大小的缓冲区逐块读取响应内容并交给 {@code consumer} 处理</p>
+   *
+   * @param url 请求地址加参数
+   * @param millis 超时时间, 对读取响应内容时的每次读操作分别生效
+   * @param chunkSize 缓冲区大小, 也是单次回调的最大字节数
+   * @param consumer 每块内容的处理方式
+   * @return 读取的总字节数
+   * @throws IOException 执行失败抛出异常
+   */
+  public static long doGetInChunks(String url, int millis, int chunkSize, ChunkConsumer consumer)
+      throws IOException {
+    Assert.isTrue(chunkSize > 0, "chunkSize 必须大于 0");
+    Assert.notNull(consumer, "consumer 不能为 null");
+    return execute(timedGet(url, millis), in -> {
+      byte[] buffer = new byte[chunkSize];
+      long total = 0;
+      int l;
+      while ((l = in.read(buffer)) != -1) {
+        if (l > 0) {
+          consumer.accept(buffer, l);
+          total += l;
+        }
+      }
+      return total;
+    });
+  }
+
+  /**
+   * <p>根据 {@code HttpPost} 对象发送 post 请求, 以输入流的方式处理响应内容</p>
+   *
+   * @param post {@code HttpPost} 对象
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T doPostAsStream(HttpPost post, StreamHandler<T> handler) throws IOException {
+    return execute(post, handler);
+  }
+
+  /**
+   * <p>执行请求, 以输入流的方式处理响应内容; 处理完成后关闭响应, 读完内容时连接回到连接池</p>
+   *
+   * @param request 请求
+   * @param handler 响应内容的处理方式
+   * @param <T> 处理结果类型
+   * @return 处理结果
+   * @throws IOException 执行失败抛出异常
+   */
+  public static <T> T execute(HttpUriRequest request, StreamHandler<T> handler) throws IOException {
+    Assert.notNull(handler, "handler 不能为 null");
+    return executeForEntity(request, entity -> handler.handle(contentOf(entity)));
+  }
+
+  /**
+   * <p>把 get 请求的响应内容下载到文件, 文件已存在时覆盖</p>
+   *
+   * @param url 请求地址加参数
+   * @param target 目标文件, 所在目录需要已存在
+   * @return 文件的字节数
+   * @throws IOException 请求失败, 响应状态码不是 200, 或者写入失败时抛出
+   */
+  public static long downloadTo(String url, Path target) throws IOException {
+    return downloadTo(url, target, false, null);
+  }
+
+  /**
+   * <p>把 get 请求的响应内容下载到文件, 响应内容经过一个固定大小的直接缓冲区写入 {@code FileChannel},
+   * 内存占用与文件大小无关</p>
+   * <p>{@code resume} 为 {@code true} 且文件已存在时, 通过 {@code Range} 请求头只下载剩余的部分并追加到文件末尾;
+   * 服务端不支持范围请求 (返回 200) 时重新下载整个文件. 下载中途失败时已写入的内容会保留, 可以再次调用续传
+   *
+   * @param url 请求地址加参数
+   * @param target 目标文件, 所在目录需要已存在
+   * @param resume 是否从已有文件的末尾续传
+   * @param listener 进度回调, 每写入一个缓冲区调用一次, 可以为 {@code null}
+   * @return 文件的字节数
+   * @throws IOException 请求失败, 响应状态码不符合预期, 或者写入失败时抛出
+   */
+  public static long downloadTo(String url, Path target, boolean resume, ProgressListener listener)
+      throws IOException {
+    Assert.hasText(url, "url 不能为空");
+    Assert.notNull(target, "target 不能为 null");
+    long existing = resume && Files.isRegularFile(target) ? Files.size(target) : 0L;
+    HttpGet get = timedGet(url, -1);
+    // 范围请求的偏移量针对未压缩的文件内容
+    get.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING_IDENTITY);
+    if (existing > 0) {
+      get.setHeader(HttpHeaders.RANGE, BYTES_UNIT + "=" + existing + "-");
+    }
     CloseableHttpResponse response = null;
     try {
-      response = httpClient.execute(post);
-      HttpEntity res = response.getEntity();
-      return entityToString(res);
+      response = getClientPool().getClient().execute(get);
+      int status = response.getStatusLine().getStatusCode();
+      HttpEntity entity = response.getEntity();
+      long length = entity == null ? 0L : entity.getContentLength();
+      if (status == HttpStatus.SC_OK) {
+        return writeTo(entity, target, 0L, length, listener);
+      }
+      long[] range = existing > 0 ? parseContentRange(response) : null;
+      if (status == HttpStatus.SC_PARTIAL_CONTENT && range != null && range[0] == existing) {
+        long total = range[1] >= 0 ? range[1] : length >= 0 ? existing + length : -1L;
+        return writeTo(entity, target, existing, total, listener);
+      }
+      if (status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE && range != null && range[1] == existing) {
+        // 文件已经下载完整
+        if (listener != null) {
+          listener.onProgress(existing, existing);
+        }
+        return existing;
+      }
+      throw new IOException("下载失败, 状态码: " + status + ", url: " + url);
     } finally {
-      closeConn(httpClient, response);
+      closeConn(response);
     }
   }
 
+  /**
+   * <p>异步发送 get 请求, 参数拼接在地址上</p>
+   *
+   * @param url 请求地址加参数
+   * @return 完成时得到响应结果, 请求失败时以 {@code IOException} 等异常完成
+   */
+  public static CompletableFuture<String> getAsync(String url) {
+    return getAsync(url, -1);
+  }
+
+  /**
+   * <p>异步发送 get 请求, 参数拼接在地址上</p>
+   *
+   * @param url 请求地址加参数
+   * @param millis 超时时间
+   * @return 完成时得到响应结果, 请求失败时以 {@code IOException} 等异常完成
+   */
+  public static CompletableFuture<String> getAsync(String url, int millis) {
+    return executeAsync(timedGet(url, millis));
+  }
+
+  /**
+   * <p>异步发送 post 请求, {@code body} 参数为 json 字符串</p>
+   *
+   * @param url 请求地址
+   * @param body json 字符串形式的 {@code body} 参数
+   * @return 完成时得到响应结果, 请求失败时以 {@code IOException} 等异常完成
+   */
+  public static CompletableFuture<String> postJsonAsync(String url, String body) {
+    return postJsonAsync(url, body, -1);
+  }
+
+  /**
+   * <p>异步发送 post 请求, {@code body} 参数为 json 字符串</p>
+   *
+   * @param url 请求地址
+   * @param body json 字符串形式的 {@code body} 参数
+   * @param millis 超时时间
+   * @return 完成时得到响应结果, 请求失败时以 {@code IOException} 等异常完成
+   */
+  public static CompletableFuture<String> postJsonAsync(String url, String body, int millis) {
+    return executeAsync(jsonPost(url, body, millis));
+  }
+
+  /**
+   * <p>根据 {@code HttpPost} 对象异步发送 post 请求</p>
+   *
+   * @param post {@code HttpPost} 对象
+   * @return 完成时得到响应结果, 请求失败时以 {@code IOException} 等异常完成
+   */
+  public static CompletableFuture<String> doPostAsync(HttpPost post) {
+    return executeAsync(post);
+  }
+
   /**
    * <p>把用以 {@code json} 请求的 {@code json} 字符串形式的 {@code body} 内容
    * <p>转换为 {@code StringEntity} 对象
@@ -228,6 +569,187 @@ public class HttpUtils {
         .setSocketTimeout(millis).build();
   }
 
+  /**
+   * <p>在异步连接池上执行请求, 响应内容由连接池读入内存后在 IO 线程中转换为字符串;
+   * 取消返回的 {@code CompletableFuture} 时同时中止请求</p>
+   */
+  private static CompletableFuture<String> executeAsync(HttpUriRequest request) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+      request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING_COMPRESSED);
+    }
+    Future<HttpResponse> execution;
+    try {
+      execution = getAsyncClientPool().getClient().execute(request, new FutureCallback<HttpResponse>() {
+        @Override
+        public void completed(HttpResponse response) {
+          try {
+            result.complete(entityToString(decompressed(response.getEntity())));
+          } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+          }
+        }
+
+        @Override
+        public void failed(Exception e) {
+          result.completeExceptionally(e);
+        }
+
+        @Override
+        public void cancelled() {
+          result.cancel(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return result;
+    }
+    result.whenComplete((body, e) -> {
+      if (result.isCancelled()) {
+        execution.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * <p>在同步连接池上执行请求并处理响应实体, 处理完成后关闭响应</p>
+   */
+  private static <T> T executeForEntity(HttpUriRequest request, EntityHandler<T> handler) throws IOException {
+    CloseableHttpResponse response = null;
+    try {
+      response = getClientPool().getClient().execute(request);
+      return handler.handle(response.getEntity());
+    } finally {
+      closeConn(response);
+    }
+  }
+
+  /**
+   * <p>创建设置了超时时间的 {@code HttpGet} 对象</p>
+   */
+  private static HttpGet timedGet(String url, int millis) {
+    HttpGet get = new HttpGet(url);
+    get.setConfig(getReqTimeoutConf(millis > 0 ? millis : DEFAULT_TIMEOUT_MILLIS));
+    return get;
+  }
+
+  private static InputStream contentOf(HttpEntity entity) throws IOException {
+    return entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+  }
+
+  /**
+   * <p>获取响应声明的字符集, 没有声明或者无法识别时返回默认字符集</p>
+   */
+  private static Charset charsetOf(HttpEntity entity) {
+    Charset charset = null;
+    try {
+      ContentType contentType = entity == null ? null : ContentType.get(entity);
+      charset = contentType == null ? null : contentType.getCharset();
+    } catch (ParseException | UnsupportedCharsetException e) {
+      // 使用默认字符集
+    }
+    return charset != null ? charset : Charset.forName(DEFAULT_CHARSET);
+  }
+
+  /**
+   * <p>从 {@code start} 处开始把响应内容写入文件, 先把直接缓冲区读满再写入, 减少系统调用次数</p>
+   */
+  private static long writeTo(HttpEntity entity, Path target, long start, long total, ProgressListener listener)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ReadableByteChannel source = Channels.newChannel(contentOf(entity))) {
+      channel.truncate(start);
+      channel.position(start);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(DOWNLOAD_BUFFER_SIZE);
+      long position = start;
+      boolean eof = false;
+      while (!eof) {
+        while (buffer.hasRemaining() && !eof) {
+          eof = source.read(buffer) < 0;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          position += channel.write(buffer);
+        }
+        buffer.clear();
+        if (listener != null) {
+          listener.onProgress(position, total);
+        }
+      }
+      return position;
+    }
+  }
+
+  /**
+   * <p>解析 {@code Content-Range} 响应头, 格式为 {@code bytes 100-199/1000}, {@code bytes 100-199/*}
+   * 或 {@code bytes *}{@code /1000}</p>
+   *
+   * @return 起始位置和总长度, 未知的部分为 -1; 没有该响应头或者格式不正确时返回 {@code null}
+   */
+  private static long[] parseContentRange(HttpResponse response) {
+    Header header = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+    if (header == null) {
+      return null;
+    }
+    String value = header.getValue().trim();
+    int slash = value.indexOf('/');
+    if (!value.startsWith(BYTES_UNIT) || slash < 0) {
+      return null;
+    }
+    String range = value.substring(BYTES_UNIT.length(), slash).trim();
+    String total = value.substring(slash + 1).trim();
+    try {
+      int dash = range.indexOf('-');
+      long start = UNKNOWN_RANGE.equals(range) || dash < 0 ? -1L : Long.parseLong(range.substring(0, dash).trim());
+      return new long[]{start, UNKNOWN_RANGE.equals(total) ? -1L : Long.parseLong(total)};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * <p>创建发送 json 字符串的 {@code HttpPost} 对象</p>
+   */
+  private static HttpPost jsonPost(String url, String body, int millis) {
+    HttpPost post = new HttpPost(url);
+    post.addHeader(CONTENT_TYPE, JSON_POST_CONTENT_TYPE);
+    post.setHeader(ACCEPT, JSON_POST_ACCEPT);
+    post.setEntity(jsonEntity(body));
+    post.setConfig(getReqTimeoutConf(millis > 0 ? millis : DEFAULT_TIMEOUT_MILLIS));
+    return post;
+  }
+
+  /**
+   * <p>创建 json 请求体, 开启了请求压缩且超过阈值时使用 gzip 压缩</p>
+   */
+  private static HttpEntity jsonEntity(String body) {
+    int threshold = requestCompressionThreshold;
+    // UTF-8 编码后每个字符最多 3 字节, 明显小于阈值时不需要先编码
+    if (threshold == DISABLED || body == null || body.length() * 3L < threshold) {
+      return getJsonBodyStringEntity(body);
+    }
+    byte[] bytes = body.getBytes(Charset.forName(DEFAULT_CHARSET));
+    if (bytes.length < threshold) {
+      return getJsonBodyStringEntity(body);
+    }
+    ByteArrayEntity entity = new ByteArrayEntity(CodecPool.gzip(bytes), ContentType.APPLICATION_JSON);
+    entity.setContentEncoding(CodecPool.GZIP);
+    return entity;
+  }
+
+  /**
+   * <p>按 {@code Content-Encoding} 解压异步响应的内容, 同步请求由连接池自动解压</p>
+   */
+  private static HttpEntity decompressed(HttpEntity entity) {
+    Header encoding = entity == null ? null : entity.getContentEncoding();
+    if (encoding == null) {
+      return entity;
+    }
+    InputStreamFactory decoder = CodecPool.decoders().get(encoding.getValue().trim().toLowerCase(Locale.ROOT));
+    return decoder == null ? entity : new DecompressingEntity(entity, decoder);
+  }
+
   /**
    * <p>将传入的 {@code key} 和 {@code value} 结合成 {@code key=value} 的 url 参数形式</p>
    * <p>toParamStr("key", "value") = "key=value"</p>
@@ -274,15 +796,16 @@ public class HttpUtils {
       return EntityUtils.toString(entity, DEFAULT_CHARSET);
     }
 
-    InputStreamReader reader = new InputStreamReader(entity.getContent(), DEFAULT_CHARSET);
-    CharArrayBuffer buffer = new CharArrayBuffer(MAX_ENTITY_LENGTH);
-    char[] tmp = new char[1024];
-    int l;
-    while ((l = reader.read(tmp)) != -1) {
-      buffer.append(tmp, 0, l);
+    // 关闭流时解压用的 Inflater 归还到池中
+    try (InputStreamReader reader = new InputStreamReader(entity.getContent(), DEFAULT_CHARSET)) {
+      CharArrayBuffer buffer = new CharArrayBuffer(MAX_ENTITY_LENGTH);
+      char[] tmp = new char[1024];
+      int l;
+      while ((l = reader.read(tmp)) != -1) {
+        buffer.append(tmp, 0, l);
+      }
+      return buffer.toString();
     }
-
-    return buffer.toString();
   }
 
   /**
@@ -307,7 +830,7 @@ public class HttpUtils {
   }
 
   /**
-   * <p>关闭连接资源</p>
+   * <p>关闭连接资源; 响应内容已读完时关闭响应会把连接还给连接池, 否则连接被关闭</p>
    *
    * @param closeables 可关闭对象
    * @throws IOException 关闭遇到 IO 异常时抛出
@@ -334,4 +857,13 @@ public class HttpUtils {
 
     return pairs;
   }
+
+  /**
+   * <p>处理响应实体, 实体可能为 {@code null}</p>
+   */
+  @FunctionalInterface
+  private interface EntityHandler<T> {
+
+    T handle(HttpEntity entity) throws IOException;
+  }
 }
@@ -0,0 +1,18 @@
+package com.github.codinghck.base.util.common.http;
+
+/**
+ * <p>传输进度回调, 见 {@link HttpUtils#downloadTo(String, java.nio.file.Path, boolean, ProgressListener)}</p>
+ *
+ * @author hck 2026-10-18 00:10
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+  /**
+   * <p>报告当前进度, 在执行传输的线程中调用, 不应有耗时操作</p>
+   *
+   * @param transferred 已完成的字节数, 断点续传时包含之前已下载的部分
+   * @param total 总字节数, 未知时为 -1
+   */
+  void onProgress(long transferred, long total);
+}
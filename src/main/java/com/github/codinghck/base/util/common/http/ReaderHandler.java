@@ -0,0 +1,22 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>以字符流的方式处理响应内容, 见 {@link HttpUtils#doGetAsReader(String, ReaderHandler)}</p>
+ *
+ * @author hck 2026-10-17 23:40
+ */
+@FunctionalInterface
+public interface ReaderHandler<T> {
+
+  /**
+   * <p>处理响应内容, 方法返回后字符流即被关闭, 不能在方法之外继续读取</p>
+   *
+   * @param reader 按响应声明的字符集 (默认 UTF-8) 解码的字符流
+   * @return 处理结果
+   * @throws IOException 读取失败时抛出
+   */
+  T handle(Reader reader) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.github.codinghck.base.util.common.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>以流的方式处理响应内容, 见 {@link HttpUtils#doGetAsStream(String, StreamHandler)}</p>
+ *
+ * @author hck 2026-10-17 23:40
+ */
+@FunctionalInterface
+public interface StreamHandler<T> {
+
+  /**
+   * <p>处理响应内容, 方法返回后流即被关闭, 不能在方法之外继续读取</p>
+   * <p>读到流的末尾时连接可以被复用, 提前返回时连接会被关闭
+   *
+   * @param in 响应内容的输入流, 没有响应内容时为空流
+   * @return 处理结果
+   * @throws IOException 读取失败时抛出
+   */
+  T handle(InputStream in) throws IOException;
+}
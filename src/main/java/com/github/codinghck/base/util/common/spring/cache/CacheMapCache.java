@@ -0,0 +1,96 @@
+package com.github.codinghck.base.util.common.spring.cache;
+
+import com.github.codinghck.base.util.common.cache.CacheMap;
+import com.github.codinghck.base.util.common.exception.CacheLoadException;
+import java.util.concurrent.Callable;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.util.Assert;
+
+/**
+ * <p>以 {@link CacheMap} 为存储的 Spring {@code Cache}</p>
+ * <p>{@code @Cacheable(sync = true)} 会调用 {@link #get(Object, Callable)}, 同一个键的并发加载只执行一次,
+ * 配置了刷新时间时, 之后的读取也会用这个方法异步刷新
+ * <p>不带 {@code sync} 的 {@code @Cacheable} 只调用 {@link #lookup(Object)}, Spring 不提供加载方法,
+ * 这里也无法得知如何重新加载, 因此写入超过刷新时间的条目不会被刷新, 只会在过期后由下一次调用重新写入.
+ * 需要刷新的缓存请使用 {@code @Cacheable(sync = true)}
+ *
+ * @author hck 2026-10-17 19:15
+ */
+@SuppressWarnings("unused")
+public class CacheMapCache extends AbstractValueAdaptingCache {
+
+  private final String name;
+  private final CacheMap<Object, Object> cache;
+
+  /**
+   * @param name 缓存名称
+   * @param cache 存储
+   * @param allowNullValues 是否缓存 {@code null} 值
+   */
+  public CacheMapCache(String name, CacheMap<Object, Object> cache, boolean allowNullValues) {
+    super(allowNullValues);
+    Assert.notNull(name, "name 不能为 null");
+    Assert.notNull(cache, "cache 不能为 null");
+    this.name = name;
+    this.cache = cache;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public CacheMap<Object, Object> getNativeCache() {
+    return cache;
+  }
+
+  /**
+   * <p>只读取未过期的值, 没有加载方法, 不会触发刷新</p>
+   */
+  @Override
+  protected Object lookup(Object key) {
+    return cache.get(key);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    try {
+      return (T) fromStoreValue(cache.get(key, k -> toStoreValue(valueLoader.call())));
+    } catch (CacheLoadException e) {
+      throw new ValueRetrievalException(key, valueLoader, e.getCause());
+    }
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    if (value == null && !isAllowNullValues()) {
+      cache.remove(key);
+      return;
+    }
+    cache.put(key, toStoreValue(value));
+  }
+
+  /**
+   * <p>通过 {@link CacheMap#putIfAbsent(Object, Object)} 在分段锁内完成检查和写入;
+   * 不缓存 {@code null} 值时, 写入 {@code null} 只返回已有的值</p>
+   */
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    if (value == null && !isAllowNullValues()) {
+      return toValueWrapper(cache.get(key));
+    }
+    return toValueWrapper(cache.putIfAbsent(key, toStoreValue(value)));
+  }
+
+  @Override
+  public void evict(Object key) {
+    cache.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.codinghck.base.util.common.spring.cache;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>没有其他 {@code CacheManager} 时注册 {@link CacheMapCacheManager};
+ * 使用 {@code @Cacheable} 等注解时仍需要在应用中开启 {@code @EnableCaching}</p>
+ * <p>作为自动配置通过 {@code META-INF/spring.factories} 加载, 在应用自己的配置之后处理,
+ * {@code @ConditionalOnMissingBean} 才能看到应用定义的 {@code CacheManager}; {@code ScanConfig}
+ * 的包扫描排除了自动配置类. 设置 {@code codinghck.cache.enabled=false} 可以关闭
+ *
+ * @author hck 2026-10-17 19:25
+ */
+@Configuration
+@AutoConfigureBefore(CacheAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "codinghck.cache", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(CacheMapCacheProperties.class)
+public class CacheMapCacheConfig {
+
+  @Bean
+  @ConditionalOnMissingBean(CacheManager.class)
+  public CacheMapCacheManager cacheManager(CacheMapCacheProperties properties) {
+    return new CacheMapCacheManager(properties);
+  }
+}
@@ -0,0 +1,93 @@
+package com.github.codinghck.base.util.common.spring.cache;
+
+import com.github.codinghck.base.util.common.cache.CacheMap;
+import com.github.codinghck.base.util.common.cache.CacheMapBuilder;
+import com.github.codinghck.base.util.common.spring.cache.CacheMapCacheProperties.Spec;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.Assert;
+
+/**
+ * <p>为每个缓存名称创建一个 {@link CacheMap} 的 Spring {@code CacheManager}</p>
+ * <p>过期时间, 最大条目数和刷新时间来自 {@link CacheMapCacheProperties}, 可以按缓存名称单独配置;
+ * 容器关闭时关闭所有缓存
+ *
+ * @author hck 2026-10-17 19:20
+ */
+@SuppressWarnings("unused")
+public class CacheMapCacheManager implements CacheManager, DisposableBean {
+
+  private final CacheMapCacheProperties properties;
+  private final ConcurrentHashMap<String, CacheMapCache> caches = new ConcurrentHashMap<>();
+  private final boolean dynamic;
+
+  /**
+   * @param properties 缓存配置
+   */
+  public CacheMapCacheManager(CacheMapCacheProperties properties) {
+    Assert.notNull(properties, "properties 不能为 null");
+    this.properties = properties;
+    this.dynamic = properties.getCacheNames().length == 0;
+    for (String name : properties.getCacheNames()) {
+      caches.put(name, createCache(name));
+    }
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    Cache cache = caches.get(name);
+    if (cache == null && dynamic) {
+      cache = caches.computeIfAbsent(name, this::createCache);
+    }
+    return cache;
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  @Override
+  public void destroy() {
+    for (CacheMapCache cache : caches.values()) {
+      cache.getNativeCache().close();
+    }
+    caches.clear();
+  }
+
+  /**
+   * <p>按名称对应的配置创建缓存, 未单独配置的项使用默认配置</p>
+   *
+   * @param name 缓存名称
+   * @return 缓存
+   */
+  protected CacheMapCache createCache(String name) {
+    Spec defaults = properties.getDefaults();
+    Spec spec = properties.getSpecs().getOrDefault(name, defaults);
+    CacheMapBuilder<Object, Object> builder = CacheMap.newBuilder();
+    Long expireAfterWrite = or(spec.getExpireAfterWrite(), defaults.getExpireAfterWrite());
+    if (expireAfterWrite != null) {
+      builder.expireAfterWrite(expireAfterWrite);
+    }
+    Long maximumSize = or(spec.getMaximumSize(), defaults.getMaximumSize());
+    if (maximumSize != null) {
+      builder.maximumSize(maximumSize);
+    }
+    Long refreshAfterWrite = or(spec.getRefreshAfterWrite(), defaults.getRefreshAfterWrite());
+    if (refreshAfterWrite != null) {
+      builder.refreshAfterWrite(refreshAfterWrite);
+    }
+    if (Boolean.TRUE.equals(or(spec.getRecordStats(), defaults.getRecordStats()))) {
+      builder.recordStats();
+    }
+    return new CacheMapCache(name, builder.build(), properties.isAllowNullValues());
+  }
+
+  private static <T> T or(T value, T defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+}
@@ -0,0 +1,65 @@
+package com.github.codinghck.base.util.common.spring.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * <p>{@link CacheMapCacheManager} 的配置, 例如:</p>
+ * <pre>
+ *   codinghck.cache.defaults.expire-after-write=60000
+ *   codinghck.cache.defaults.maximum-size=10000
+ *   codinghck.cache.specs.users.expire-after-write=300000
+ *   codinghck.cache.specs.users.refresh-after-write=60000
+ * </pre>
+ *
+ * @author hck 2026-10-17 19:10
+ */
+@Data
+@ConfigurationProperties(prefix = "codinghck.cache")
+public class CacheMapCacheProperties {
+
+  /**
+   * 是否注册 {@link CacheMapCacheManager}, 见 {@link CacheMapCacheConfig}
+   */
+  private boolean enabled = true;
+
+  /**
+   * 缓存名称, 配置后只能使用这些缓存; 为空时按需创建
+   */
+  private String[] cacheNames = new String[0];
+
+  /**
+   * 是否缓存 {@code null} 值
+   */
+  private boolean allowNullValues = true;
+
+  /**
+   * 未单独配置的缓存使用的默认配置
+   */
+  private Spec defaults = new Spec();
+
+  /**
+   * 按缓存名称单独配置, 未设置的项使用默认配置
+   */
+  private Map<String, Spec> specs = new LinkedHashMap<>();
+
+  /**
+   * <p>单个缓存的配置, 时间单位都是毫秒</p>
+   */
+  @Data
+  public static class Spec {
+
+    private Long expireAfterWrite;
+
+    private Long maximumSize;
+
+    /**
+     * 只对 {@code @Cacheable(sync = true)} 的读取生效, 见 {@link CacheMapCache}
+     */
+    private Long refreshAfterWrite;
+
+    private Boolean recordStats;
+  }
+}
@@ -1,13 +1,20 @@
 package com.github.codinghck.base.util.common.spring.restful.config;
 
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 
 /**
+ * <p>自动配置类由 {@code META-INF/spring.factories} 加载, 扫描时排除, 否则会作为普通配置提前处理,
+ * 其中的条件注解无法按预期生效</p>
+ *
  * @author hck 2019-04-10 17:36
  */
 @Configuration
-@ComponentScan(basePackages = "com.github.codinghck.base.util.common.spring")
+@ComponentScan(basePackages = "com.github.codinghck.base.util.common.spring",
+    excludeFilters = @Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class))
 public class ScanConfig {
 
 }
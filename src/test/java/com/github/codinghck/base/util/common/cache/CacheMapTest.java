@@ -0,0 +1,335 @@
+package com.github.codinghck.base.util.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.codinghck.base.util.common.base.date.ManualClock;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>{@link CacheMap} 的行为测试, 时间统一由 {@link ManualClock} 控制</p>
+ *
+ * @author hck 2026-10-17 10:40
+ */
+public class CacheMapTest {
+
+  private ManualClock clock;
+  private CacheMap<String, Integer> cache;
+
+  @Before
+  public void setUp() {
+    clock = new ManualClock(0L);
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  /**
+   * <p>值即权重, 便于用很小的对象模拟很大的条目</p>
+   */
+  private CacheMap<String, Integer> weighted(long maximumWeight) {
+    return CacheMap.<String, Integer>newBuilder()
+        .maximumWeight(maximumWeight)
+        .weigher((k, v) -> v)
+        .clock(clock)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * <p>刷新和移除回调在调用线程中同步执行, 测试不需要等待线程池</p>
+   */
+  private CacheMapBuilder<String, Integer> builder() {
+    return CacheMap.<String, Integer>newBuilder()
+        .clock(clock)
+        .executor(Runnable::run)
+        .recordStats();
+  }
+
+  /**
+   * <p>推进时间并清理, 多推进两个刻度保证时间轮已经越过过期时间</p>
+   */
+  private void advanceAndCleanUp(long millis) {
+    clock.advance(millis + 2 * TimerWheel.TICK_MILLIS);
+    cache.cleanUp();
+  }
+
+  private static long totalWeight(CacheMap<String, Integer> cache) {
+    long total = 0;
+    for (Integer weight : cache.values()) {
+      total += weight;
+    }
+    return total;
+  }
+
+  @Test
+  public void keepsEntryLargerThanSegmentShare() {
+    // 至少有 4 个分段, 256MB 的上限平均到每个分段最多 64MB
+    cache = weighted(256L << 20);
+    cache.put("big", 200 << 20);
+    cache.put("small", 5 << 20);
+    assertEquals(Integer.valueOf(200 << 20), cache.get("big"));
+    assertEquals(Integer.valueOf(5 << 20), cache.get("small"));
+    assertEquals(0L, cache.stats().evictionCount());
+  }
+
+  @Test
+  public void keepsEntryLargerThanHalfOfMaximum() {
+    cache = weighted(1000);
+    for (int i = 0; i < 20; i++) {
+      cache.put("small-" + i, 10);
+    }
+    cache.put("big", 700);
+    assertEquals(Integer.valueOf(700), cache.get("big"));
+    assertTrue(totalWeight(cache) <= 1000);
+  }
+
+  @Test
+  public void boundsTotalWeightAcrossSegments() {
+    cache = weighted(1000);
+    for (int i = 0; i < 500; i++) {
+      cache.put("key-" + i, 1 + i % 20);
+      assertTrue("写入第 " + i + " 个条目后超出上限", totalWeight(cache) <= 1000);
+    }
+    assertTrue(cache.stats().evictionCount() > 0);
+  }
+
+  @Test
+  public void rejectsEntryHeavierThanMaximum() {
+    cache = weighted(1000);
+    cache.put("small", 10);
+    cache.put("huge", 1001);
+    assertNull(cache.get("huge"));
+    assertEquals(Integer.valueOf(10), cache.get("small"));
+  }
+
+  @Test
+  public void expiresAfterWrite() {
+    cache = builder().expireAfterWrite(1000).build();
+    cache.put("a", 1);
+    clock.advance(999);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    clock.advance(1);
+    assertNull(cache.get("a"));
+    assertEquals(1, cache.size());
+    advanceAndCleanUp(0);
+    assertEquals(0, cache.size());
+    assertEquals(1L, cache.stats().removalCount(RemovalCause.EXPIRED));
+  }
+
+  @Test
+  public void perEntryTtlOverridesDefault() {
+    cache = builder().expireAfterWrite(10_000).build();
+    cache.put("short", 1, 1000);
+    cache.put("default", 2);
+    advanceAndCleanUp(1000);
+    assertNull(cache.get("short"));
+    assertEquals(Integer.valueOf(2), cache.get("default"));
+  }
+
+  @Test
+  public void refreshesAfterWriteAndReturnsOldValue() {
+    AtomicInteger loads = new AtomicInteger();
+    CacheLoader<String, Integer> loader = key -> loads.incrementAndGet();
+    cache = builder().expireAfterWrite(10_000).refreshAfterWrite(1000).build();
+    assertEquals(Integer.valueOf(1), cache.get("a", loader));
+    clock.advance(999);
+    assertEquals(Integer.valueOf(1), cache.get("a", loader));
+    assertEquals(1, loads.get());
+    clock.advance(1);
+    // 触发刷新的读取仍返回旧值
+    assertEquals(Integer.valueOf(1), cache.get("a", loader));
+    assertEquals(2, loads.get());
+    assertEquals(Integer.valueOf(2), cache.get("a"));
+    assertEquals(1L, cache.stats().removalCount(RemovalCause.REPLACED));
+  }
+
+  @Test
+  public void refreshesThroughDefaultLoader() {
+    AtomicInteger loads = new AtomicInteger();
+    cache = builder().refreshAfterWrite(1000).loader(key -> loads.incrementAndGet()).build();
+    cache.put("a", 0);
+    clock.advance(1000);
+    assertEquals(Integer.valueOf(0), cache.get("a"));
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+  }
+
+  @Test
+  public void recordsClearAsExplicitRemovals() {
+    cache = builder().build();
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.remove("a");
+    cache.put("c", 3);
+    cache.clear();
+    assertEquals(3L, cache.stats().removalCount(RemovalCause.EXPLICIT));
+  }
+
+  @Test
+  public void closeUnregistersMBean() throws Exception {
+    cache = builder().build();
+    ObjectName name = cache.registerMBean("cache-map-test");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertTrue(server.isRegistered(name));
+    cache.close();
+    assertFalse(server.isRegistered(name));
+  }
+
+  @Test
+  public void evictsBySize() {
+    cache = builder().maximumSize(100).build();
+    for (int i = 0; i < 1000; i++) {
+      cache.put("key-" + i, i);
+    }
+    cache.cleanUp();
+    assertTrue(cache.size() <= 100);
+    assertEquals(1000L - cache.size(), cache.stats().removalCount(RemovalCause.SIZE));
+  }
+
+  @Test
+  public void keepsFrequentlyReadEntryUnderSizePressure() {
+    cache = builder().maximumSize(100).build();
+    cache.put("hot", -1);
+    for (int i = 0; i < 1000; i++) {
+      cache.get("hot");
+      cache.put("key-" + i, i);
+      if (i % 50 == 0) {
+        cache.cleanUp();
+      }
+    }
+    assertEquals(Integer.valueOf(-1), cache.get("hot"));
+  }
+
+  @Test
+  public void putIfAbsentSucceedsOnceForConcurrentWriters() throws Exception {
+    int threads = 8;
+    cache = builder().expireAfterWrite(1000).build();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        int value = i;
+        results.add(pool.submit(() -> {
+          start.await();
+          return cache.putIfAbsent("a", value);
+        }));
+      }
+      start.countDown();
+      int winners = 0;
+      for (Future<Integer> result : results) {
+        Integer existing = result.get(5, TimeUnit.SECONDS);
+        if (existing == null) {
+          winners++;
+        } else {
+          assertEquals(cache.get("a"), existing);
+        }
+      }
+      assertEquals(1, winners);
+    } finally {
+      pool.shutdownNow();
+    }
+    // 过期的条目视为不存在
+    clock.advance(1000);
+    assertNull(cache.putIfAbsent("a", 100));
+    assertEquals(Integer.valueOf(100), cache.get("a"));
+  }
+
+  @Test
+  public void loadsOnceForConcurrentMisses() throws Exception {
+    int threads = 8;
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    CacheLoader<String, Integer> loader = key -> {
+      loads.incrementAndGet();
+      release.await();
+      return 42;
+    };
+    cache = builder().build();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch started = new CountDownLatch(threads);
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(pool.submit(() -> {
+          started.countDown();
+          return cache.get("a", loader);
+        }));
+      }
+      started.await();
+      // 给其他线程时间进入等待, 晚到的线程会直接命中加载好的值
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<Integer> result : results) {
+        assertEquals(Integer.valueOf(42), result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void cachesAbsentKeys() {
+    AtomicInteger loads = new AtomicInteger();
+    CacheLoader<String, Integer> loader = key -> {
+      loads.incrementAndGet();
+      return null;
+    };
+    cache = builder().negativeCaching(1000, 100).build();
+    assertNull(cache.get("missing", loader));
+    assertNull(cache.get("missing", loader));
+    assertEquals(1, loads.get());
+    assertTrue(cache.isKnownAbsent("missing"));
+    advanceAndCleanUp(1000);
+    assertNull(cache.get("missing", loader));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void putClearsAbsentMark() {
+    cache = builder().negativeCaching(1000, 100).build();
+    assertNull(cache.get("a", key -> null));
+    cache.put("a", 1);
+    assertEquals(Integer.valueOf(1), cache.get("a", key -> null));
+  }
+
+  @Test
+  public void reportsRemovalCauses() {
+    List<String> removals = Collections.synchronizedList(new ArrayList<>());
+    cache = builder()
+        .expireAfterWrite(1000)
+        .removalListener((key, value, cause) -> removals.add(key + "=" + value + ":" + cause))
+        .build();
+    cache.put("a", 1);
+    cache.put("a", 2);
+    cache.remove("a");
+    cache.put("b", 3);
+    advanceAndCleanUp(1000);
+    assertEquals(3, removals.size());
+    assertTrue(removals.contains("a=1:REPLACED"));
+    assertTrue(removals.contains("a=2:EXPLICIT"));
+    assertTrue(removals.contains("b=3:EXPIRED"));
+    assertEquals(1L, cache.stats().evictionCount());
+  }
+}
@@ -0,0 +1,104 @@
+package com.github.codinghck.base.util.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.codinghck.base.util.common.base.date.ManualClock;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>{@link CacheSnapshot} 的测试, 损坏的快照文件应当按冷启动处理而不是抛出异常</p>
+ *
+ * @author hck 2026-10-18 04:20
+ */
+public class CacheSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final JdkCacheSerializer<String> keys = new JdkCacheSerializer<>();
+  private final JdkCacheSerializer<Integer> values = new JdkCacheSerializer<>();
+  private Path file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = folder.getRoot().toPath().resolve("cache.snapshot");
+    try (CacheMap<String, Integer> cache = CacheMap.<String, Integer>newBuilder()
+        .clock(new ManualClock(0L)).build()) {
+      cache.put("a", 1, 10_000L);
+      cache.put("b", 2, 10_000L);
+      assertEquals(2, CacheSnapshot.write(cache, file, keys, values));
+    }
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    try (CacheSnapshot<String, Integer> snapshot = CacheSnapshot.open(file, keys, values)) {
+      assertFalse(snapshot.isExhausted(0L));
+      assertTrue(snapshot.contains("a"));
+      assertEquals(Integer.valueOf(2), snapshot.take("b", 0L).getValue());
+      assertNull(snapshot.take("b", 0L));
+      assertNull(snapshot.take("c", 0L));
+    }
+  }
+
+  @Test
+  public void truncatedFileOpensEmpty() throws Exception {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.setLength(raf.length() - 5);
+    }
+    assertOpensEmpty();
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.setLength(10);
+    }
+    assertOpensEmpty();
+  }
+
+  @Test
+  public void corruptHeaderOpensEmpty() throws Exception {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      raf.seek(32);
+      raf.writeLong(Long.MAX_VALUE);
+    }
+    assertOpensEmpty();
+    Files.write(file, new byte[0]);
+    assertOpensEmpty();
+  }
+
+  @Test
+  public void corruptRecordLengthIsMiss() throws Exception {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+      // 第一个条目紧跟在 40 字节的文件头之后, 把键长度改成越界的值
+      raf.seek(40);
+      raf.writeInt(Integer.MAX_VALUE);
+    }
+    try (CacheSnapshot<String, Integer> snapshot = CacheSnapshot.open(file, keys, values)) {
+      // 被破坏的条目视为未命中, 另一个条目能否读到取决于探测顺序, 但不能抛出异常
+      int hits = 0;
+      for (String key : new String[]{"a", "b"}) {
+        CacheEntry<String, Integer> entry = snapshot.take(key, 0L);
+        if (entry != null) {
+          assertEquals(key.equals("a") ? 1 : 2, entry.getValue().intValue());
+          hits++;
+        }
+      }
+      assertTrue(hits <= 1);
+    }
+  }
+
+  private void assertOpensEmpty() throws Exception {
+    try (CacheSnapshot<String, Integer> snapshot = CacheSnapshot.open(file, keys, values)) {
+      assertTrue(snapshot.isExhausted(0L));
+      assertFalse(snapshot.contains("a"));
+      assertNull(snapshot.take("a", 0L));
+    }
+  }
+}
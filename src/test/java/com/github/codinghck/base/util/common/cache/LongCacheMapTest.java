@@ -0,0 +1,82 @@
+package com.github.codinghck.base.util.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.github.codinghck.base.util.common.base.date.ManualClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>{@link LongCacheMap} 的过期测试, 时间统一由 {@link ManualClock} 控制</p>
+ *
+ * @author hck 2026-10-18 02:10
+ */
+public class LongCacheMapTest {
+
+  private ManualClock clock;
+  private LongCacheMap<String> cache;
+
+  @Before
+  public void setUp() {
+    clock = new ManualClock(0L);
+    cache = new LongCacheMap<>(10_000L, 16, clock);
+  }
+
+  @After
+  public void tearDown() {
+    cache.close();
+  }
+
+  @Test
+  public void cleanUpRemovesOnlyDueEntries() {
+    for (long key = 0; key < 100; key++) {
+      cache.put(key, "v" + key, key < 50 ? 5_000L : 60_000L);
+    }
+    clock.advance(5_000L + 2 * TimerWheel.TICK_MILLIS);
+    cache.cleanUp();
+    assertEquals(50, cache.size());
+    assertNull(cache.get(0L));
+    assertEquals("v99", cache.get(99L));
+  }
+
+  @Test
+  public void overwrittenEntryKeepsLaterDeadline() {
+    cache.put(1L, "old", 5_000L);
+    clock.advance(3_000L);
+    cache.put(1L, "new", 60_000L);
+    clock.advance(5_000L + 2 * TimerWheel.TICK_MILLIS);
+    cache.cleanUp();
+    assertEquals("new", cache.get(1L));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void frequentOverwritesStillExpire() {
+    for (int round = 0; round < 1_000; round++) {
+      cache.put(round % 10, "v" + round);
+      clock.advance(1L);
+    }
+    assertEquals(10, cache.size());
+    clock.advance(10_000L + 2 * TimerWheel.TICK_MILLIS);
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void entryLongerThanOneRoundSurvivesCleanUps() {
+    // 过期环一圈为 256 个刻度, 这个条目在第三圈才过期
+    long ttl = 600L * TimerWheel.TICK_MILLIS;
+    cache.put(1L, "long", ttl);
+    for (long elapsed = 0; elapsed < ttl - TimerWheel.TICK_MILLIS; elapsed += 10 * TimerWheel.TICK_MILLIS) {
+      clock.advance(10 * TimerWheel.TICK_MILLIS);
+      cache.cleanUp();
+      assertEquals(1, cache.size());
+    }
+    clock.advance(2 * ttl);
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+    assertNull(cache.get(1L));
+  }
+}
@@ -0,0 +1,127 @@
+package com.github.codinghck.base.util.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.codinghck.base.util.common.base.date.ManualClock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>{@link OffHeapCacheMap} 的测试, 时间统一由 {@link ManualClock} 控制</p>
+ *
+ * @author hck 2026-10-18 03:30
+ */
+public class OffHeapCacheMapTest {
+
+  private static final int SLAB_BYTES = 4096;
+
+  private ManualClock clock;
+  private OffHeapCacheMap<String, String> cache;
+
+  @Before
+  public void setUp() {
+    clock = new ManualClock(0L);
+    cache = new OffHeapCacheMap<>(64L * SLAB_BYTES, SLAB_BYTES, 10_000L, new JdkCacheSerializer<>(), clock);
+  }
+
+  @After
+  public void tearDown() {
+    cache.close();
+  }
+
+  private static String repeat(char c, int count) {
+    StringBuilder sb = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsValueLargerThanSlab() {
+    cache.put("big", repeat('x', SLAB_BYTES * 2));
+  }
+
+  @Test
+  public void keepsOldValueWhenRejected() {
+    cache.put("k", "old");
+    try {
+      cache.put("k", repeat('x', SLAB_BYTES * 2));
+    } catch (IllegalArgumentException expected) {
+      // 预期的异常
+    }
+    assertEquals("old", cache.get("k"));
+  }
+
+  @Test
+  public void concurrentWritersOnDifferentKeys() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int thread = t;
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            String key = thread + "-" + i;
+            cache.put(key, key);
+            String value = cache.get(key);
+            // 容量不足时较早的 slab 会被回收, 读到的只能是自己写入的值或者未命中
+            assertTrue(value == null || value.equals(key));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals("3-199", cache.get("3-199"));
+  }
+
+  @Test
+  public void entrySetIsLiveView() {
+    Set<Map.Entry<String, String>> entries = cache.entrySet();
+    assertTrue(entries.isEmpty());
+    cache.put("a", "1");
+    cache.put("b", "2", 1000);
+    assertEquals(2, entries.size());
+    clock.advance(1000 + 2 * TimerWheel.TICK_MILLIS);
+    assertEquals(1, entries.size());
+    Iterator<Map.Entry<String, String>> it = entries.iterator();
+    Map.Entry<String, String> entry = it.next();
+    assertEquals("a", entry.getKey());
+    assertEquals("1", entry.getValue());
+    it.remove();
+    assertFalse(cache.containsKey("a"));
+    assertTrue(cache.keySet().isEmpty());
+  }
+
+  @Test
+  public void closeReleasesSlabs() {
+    cache.put("a", "1");
+    assertTrue(cache.allocatedBytes() > 0);
+    cache.close();
+    assertEquals(0L, cache.allocatedBytes());
+    assertNull(cache.get("a"));
+    try {
+      cache.put("b", "2");
+    } catch (IllegalStateException expected) {
+      return;
+    }
+    throw new AssertionError("关闭后写入应当失败");
+  }
+}
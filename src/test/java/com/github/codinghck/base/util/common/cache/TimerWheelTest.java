@@ -0,0 +1,78 @@
+package com.github.codinghck.base.util.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>{@link TimerWheel} 的测试, 时间由测试直接传入</p>
+ *
+ * @author hck 2026-10-17 10:45
+ */
+public class TimerWheelTest {
+
+  private final List<String> expired = new ArrayList<>();
+  private TimerWheel<String, Integer> wheel;
+
+  @Before
+  public void setUp() {
+    wheel = new TimerWheel<>(0L, entry -> expired.add(entry.key));
+  }
+
+  private CacheEntry<String, Integer> schedule(String key, long ttl) {
+    CacheEntry<String, Integer> entry = new CacheEntry<>(key, 0, 0L, ttl);
+    wheel.schedule(entry);
+    return entry;
+  }
+
+  @Test
+  public void expiresOnlyPassedBuckets() {
+    schedule("a", 1000);
+    schedule("b", 5000);
+    wheel.advance(500);
+    assertTrue(expired.isEmpty());
+    wheel.advance(1000 + 2 * TimerWheel.TICK_MILLIS);
+    assertEquals(Arrays.asList("a"), expired);
+    wheel.advance(5000 + 2 * TimerWheel.TICK_MILLIS);
+    assertEquals(Arrays.asList("a", "b"), expired);
+  }
+
+  @Test
+  public void cascadesFromCoarserLevels() {
+    long hour = 60 * 60 * 1000L;
+    schedule("hour", hour);
+    schedule("day", 24 * hour);
+    // 逐个刻度推进, 上层桶中的条目被重新放入下层桶后才会到期
+    for (long now = 0; now < hour - TimerWheel.TICK_MILLIS; now += TimerWheel.TICK_MILLIS) {
+      wheel.advance(now);
+    }
+    assertTrue(expired.isEmpty());
+    wheel.advance(hour + 2 * TimerWheel.TICK_MILLIS);
+    assertEquals(Arrays.asList("hour"), expired);
+    wheel.advance(24 * hour + 2 * TimerWheel.TICK_MILLIS);
+    assertEquals(Arrays.asList("hour", "day"), expired);
+  }
+
+  @Test
+  public void descheduledEntryNeverExpires() {
+    CacheEntry<String, Integer> entry = schedule("a", 1000);
+    schedule("b", 1000);
+    wheel.deschedule(entry);
+    wheel.advance(10_000);
+    assertEquals(Arrays.asList("b"), expired);
+  }
+
+  @Test
+  public void clearDropsAllEntries() {
+    schedule("a", 1000);
+    schedule("b", 60 * 60 * 1000L);
+    wheel.clear();
+    wheel.advance(2 * 60 * 60 * 1000L);
+    assertTrue(expired.isEmpty());
+  }
+}
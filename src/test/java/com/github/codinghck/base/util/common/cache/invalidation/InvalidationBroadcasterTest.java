@@ -0,0 +1,236 @@
+package com.github.codinghck.base.util.common.cache.invalidation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.codinghck.base.util.common.cache.CacheMap;
+import com.github.codinghck.base.util.common.cache.StringCacheSerializer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>在本机用两个端口模拟两个节点, 验证失效通过 {@link TcpInvalidationTransport} 传播到对端</p>
+ *
+ * @author hck 2026-10-18 02:40
+ */
+public class InvalidationBroadcasterTest {
+
+  private static final long FLUSH_INTERVAL_MILLIS = 10L;
+  private static final long TIMEOUT_MILLIS = 5000L;
+  private static final byte[] SECRET = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+  private CacheMap<String, String> cacheA;
+  private CacheMap<String, String> cacheB;
+  private TcpInvalidationTransport transportA;
+  private TcpInvalidationTransport transportB;
+  private InvalidationBroadcaster<String> nodeA;
+  private InvalidationBroadcaster<String> nodeB;
+
+  @Before
+  public void setUp() throws Exception {
+    int portA = freePort();
+    int portB = freePort();
+    cacheA = CacheMap.<String, String>newBuilder().build();
+    cacheB = CacheMap.<String, String>newBuilder().build();
+    transportA = TcpInvalidationTransport.loopback(SECRET, portA, portB);
+    transportB = TcpInvalidationTransport.loopback(SECRET, portB, portA);
+    nodeA = new InvalidationBroadcaster<>("users", cacheA, new StringCacheSerializer(), transportA,
+        FLUSH_INTERVAL_MILLIS, 100);
+    nodeB = new InvalidationBroadcaster<>("users", cacheB, new StringCacheSerializer(), transportB,
+        FLUSH_INTERVAL_MILLIS, 100);
+    awaitConnected(transportA, transportB);
+  }
+
+  @After
+  public void tearDown() {
+    nodeA.close();
+    nodeB.close();
+    cacheA.close();
+    cacheB.close();
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static void await(String message, BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      assertTrue(message, System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  /**
+   * <p>连接在后台建立, 之前发送的消息会被丢弃</p>
+   */
+  private static void awaitConnected(TcpInvalidationTransport... transports) throws InterruptedException {
+    for (TcpInvalidationTransport transport : transports) {
+      await("未连接到对端", () -> transport.connectedPeerCount() == 1);
+    }
+  }
+
+  @Test
+  public void invalidatePropagatesToPeer() throws InterruptedException {
+    cacheA.put("u1", "a");
+    cacheB.put("u1", "b");
+    cacheB.put("u2", "b");
+    nodeA.invalidate("u1");
+    assertNull(cacheA.get("u1"));
+    await("对端未收到失效消息", () -> cacheB.get("u1") == null);
+    assertEquals("b", cacheB.get("u2"));
+  }
+
+  @Test
+  public void invalidateAllPropagatesBothWays() throws InterruptedException {
+    for (String key : Arrays.asList("k1", "k2", "k3")) {
+      cacheA.put(key, "a");
+      cacheB.put(key, "b");
+    }
+    nodeA.invalidateAll(Arrays.asList("k1", "k2"));
+    await("对端未收到批量失效消息", () -> cacheB.get("k1") == null && cacheB.get("k2") == null);
+    assertEquals("b", cacheB.get("k3"));
+
+    nodeB.invalidate("k3");
+    await("反向的失效消息未送达", () -> cacheA.get("k3") == null);
+  }
+
+  @Test
+  public void ignoresOtherChannel() throws Exception {
+    int portC = freePort();
+    int portD = freePort();
+    CacheMap<String, String> cacheC = CacheMap.<String, String>newBuilder().build();
+    CacheMap<String, String> cacheD = CacheMap.<String, String>newBuilder().build();
+    TcpInvalidationTransport transportC = TcpInvalidationTransport.loopback(SECRET, portC, portD);
+    TcpInvalidationTransport transportD = TcpInvalidationTransport.loopback(SECRET, portD, portC);
+    try (InvalidationBroadcaster<String> nodeC = new InvalidationBroadcaster<>("orders", cacheC,
+        new StringCacheSerializer(), transportC, FLUSH_INTERVAL_MILLIS, 100);
+        InvalidationBroadcaster<String> nodeD = new InvalidationBroadcaster<>("users", cacheD,
+            new StringCacheSerializer(), transportD, FLUSH_INTERVAL_MILLIS, 100)) {
+      awaitConnected(transportC, transportD);
+      cacheD.put("k", "d");
+      nodeC.invalidate("k");
+      nodeC.flush();
+      // 不同通道的消息被忽略, 没有可以等待的结果, 只能等待一段远大于本机传输延迟的时间
+      Thread.sleep(200);
+      assertEquals("d", cacheD.get("k"));
+    } finally {
+      cacheC.close();
+      cacheD.close();
+    }
+  }
+
+  @Test
+  public void rejectsPeerWithWrongSecret() throws Exception {
+    byte[] otherSecret = "fedcba9876543210".getBytes(StandardCharsets.UTF_8);
+    CacheMap<String, String> cacheE = CacheMap.<String, String>newBuilder().build();
+    TcpInvalidationTransport transportE = TcpInvalidationTransport.loopback(otherSecret, freePort(),
+        transportB.getLocalPort());
+    try (InvalidationBroadcaster<String> nodeE = new InvalidationBroadcaster<>("users", cacheE,
+        new StringCacheSerializer(), transportE, FLUSH_INTERVAL_MILLIS, 100)) {
+      cacheB.put("k", "b");
+      // 认证失败没有可以等待的结果, 等待足够完成几次重连
+      Thread.sleep(500);
+      assertEquals(0, transportE.connectedPeerCount());
+      nodeE.invalidate("k");
+      nodeE.flush();
+      Thread.sleep(100);
+      assertEquals("b", cacheB.get("k"));
+    } finally {
+      cacheE.close();
+    }
+  }
+
+  @Test
+  public void reconnectsToPeerStartedLater() throws Exception {
+    int portF = freePort();
+    int portG = freePort();
+    CacheMap<String, String> cacheF = CacheMap.<String, String>newBuilder().build();
+    CacheMap<String, String> cacheG = CacheMap.<String, String>newBuilder().build();
+    TcpInvalidationTransport transportF = TcpInvalidationTransport.loopback(SECRET, portF, portG);
+    try (InvalidationBroadcaster<String> nodeF = new InvalidationBroadcaster<>("users", cacheF,
+        new StringCacheSerializer(), transportF, FLUSH_INTERVAL_MILLIS, 100)) {
+      // 对端未启动时发送不会阻塞, 消息被丢弃
+      nodeF.invalidate("k");
+      nodeF.flush();
+      assertEquals(0, transportF.connectedPeerCount());
+      TcpInvalidationTransport transportG = TcpInvalidationTransport.loopback(SECRET, portG, portF);
+      try (InvalidationBroadcaster<String> nodeG = new InvalidationBroadcaster<>("users", cacheG,
+          new StringCacheSerializer(), transportG, FLUSH_INTERVAL_MILLIS, 100)) {
+        awaitConnected(transportF, transportG);
+        cacheG.put("k", "g");
+        nodeF.invalidate("k");
+        await("重连后的失效消息未送达", () -> cacheG.get("k") == null);
+      }
+    } finally {
+      cacheF.close();
+      cacheG.close();
+    }
+  }
+
+  @Test
+  public void rejectsMalformedMessages() throws Exception {
+    CacheMap<String, String> cache = CacheMap.<String, String>newBuilder().build();
+    InMemoryTransport transport = new InMemoryTransport();
+    try (InvalidationBroadcaster<String> node = new InvalidationBroadcaster<>("users", cache,
+        new StringCacheSerializer(), transport, FLUSH_INTERVAL_MILLIS, 100)) {
+      cache.put("k", "v");
+      // 键数和键长度远超消息长度时不应按它们分配内存
+      transport.receiver.accept(message(Integer.MAX_VALUE, 1, (byte) 'k'));
+      transport.receiver.accept(message(1, Integer.MAX_VALUE, (byte) 'k'));
+      transport.receiver.accept(message(-1, 1, (byte) 'k'));
+      assertEquals("v", cache.get("k"));
+      transport.receiver.accept(message(1, 1, (byte) 'k'));
+      assertNull(cache.get("k"));
+    } finally {
+      cache.close();
+    }
+  }
+
+  /**
+   * <p>按消息格式手工编码一条只有一个键的消息, 键数和键长度可以与实际内容不符</p>
+   */
+  private static byte[] message(int count, int keyLength, byte... key) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(1);
+      out.writeLong(1L);
+      out.writeLong(2L);
+      out.writeUTF("users");
+      out.writeInt(count);
+      out.writeInt(keyLength);
+      out.write(key);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static final class InMemoryTransport implements InvalidationTransport {
+
+    private Consumer<byte[]> receiver;
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+      this.receiver = receiver;
+    }
+
+    @Override
+    public void publish(byte[] message) {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}